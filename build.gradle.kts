@@ -9,6 +9,7 @@ repositories {
 plugins {
     java
     kotlin("jvm") version "1.6.10"
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 java {
@@ -23,16 +24,28 @@ dependencies {
     implementation(group = "io.netty", name = "netty-common")
     implementation(group = "io.netty", name = "netty-buffer")
     implementation(group = "io.netty", name = "netty-resolver")
+    implementation(group = "io.netty", name = "netty-resolver-dns")
     implementation(group = "io.netty", name = "netty-transport")
     implementation(group = "io.netty", name = "netty-handler")
+    implementation(group = "io.netty", name = "netty-codec-http2")
+    implementation(group = "io.netty", name = "netty-transport-classes-epoll")
+
+    runtimeOnly(group = "io.netty", name = "netty-transport-native-epoll", classifier = "linux-x86_64")
+    runtimeOnly(group = "io.netty", name = "netty-transport-native-epoll", classifier = "linux-aarch_64")
 
     implementation(group = "org.slf4j", name = "slf4j-api", version = "1.7.32")
+    implementation(group = "org.reactivestreams", name = "reactive-streams", version = "1.0.3")
 
     runtimeOnly(group = "ch.qos.logback", name = "logback-classic", version = "1.2.10")
 
     testImplementation(group = "org.junit.jupiter", name = "junit-jupiter")
 }
 
+jmh {
+    jmhVersion.set("1.34")
+    profilers.add("gc")
+}
+
 tasks {
     test {
         useJUnitPlatform()
@@ -41,6 +54,13 @@ tasks {
         }
     }
 
+    register<JavaExec>("loadTest") {
+        description = "Runs YzClient against a local stub server, options in -PloadArgs, see LoadTest."
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("io.yz.yzhttp.client.LoadTest")
+        args = (project.findProperty("loadArgs") as String?)?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+    }
+
     withType<org.jetbrains.kotlin.gradle.tasks.KotlinCompile>().configureEach {
         kotlinOptions.jvmTarget = "1.8"
         incremental = true
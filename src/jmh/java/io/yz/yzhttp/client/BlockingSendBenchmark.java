@@ -0,0 +1,104 @@
+package io.yz.yzhttp.client;
+
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batches of concurrent {@link YzClient#send} calls against a server answering after {@value #DELAY_MILLIS} ms, from a
+ * pool of {@value #PLATFORM_THREADS} platform threads against one virtual thread per request.
+ * <p>
+ * The pool can only wait for {@value #PLATFORM_THREADS} responses at a time, virtual threads for as many as there are
+ * connections. {@code VIRTUAL} needs JDK 21 or later and fails its setup on older ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockingSendBenchmark {
+    private static final long DELAY_MILLIS = 10;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int CONNECTIONS = 1024;
+
+    public enum Threads {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public Threads threads;
+
+    @Param({"1000", "10000"})
+    public int requests;
+
+    private LocalHttpServer server;
+    private YzClient client;
+    private HttpRequest request;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executor = threads == Threads.PLATFORM
+                ? Executors.newFixedThreadPool(PLATFORM_THREADS)
+                : newVirtualThreadPerTaskExecutor();
+        server = new LocalHttpServer(Transport.AUTO, 64, 0, DELAY_MILLIS, true);
+        client = new YzClient(YzClientConfig.builder()
+                .setMaxConnectionsPerHost(CONNECTIONS)
+                .setMaxPendingRequestsPerHost(requests)
+                .build());
+        request = HttpRequest.builder()
+                .setHost("127.0.0.1")
+                .setPort(server.port())
+                .setMethod(HttpMethod.GET)
+                .setPath("/")
+                .setVersion(HttpVersion.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * The jmh source set targets Java 8 like the client, so virtual threads are looked up at run time.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual threads need JDK 21 or later", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void send() throws Exception {
+        final CountDownLatch done = new CountDownLatch(requests);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    client.send(request);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.yz.yzhttp.client.low.ResponseHeads;
+import io.yz.yzhttp.parser.HeaderFieldsParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpHeader} lookups on a 12 field header as the parser produces it, and building one field by field.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpHeaderBenchmark {
+    private static final String[][] FIELDS = {
+            {"Date", "Tue, 15 Mar 2022 08:12:31 GMT"},
+            {"Content-Type", "application/json; charset=utf-8"},
+            {"Content-Length", "1834"},
+            {"Connection", "keep-alive"},
+            {"Server", "nginx/1.20.2"},
+            {"Cache-Control", "private, max-age=0, must-revalidate"},
+            {"ETag", "W/\"5e1b-17f8c3d2a18\""},
+            {"Vary", "Accept-Encoding, Origin"},
+            {"X-Request-Id", "0d5c2f0e-9a4b-4c57-8f0e-3b7b6f7f1c2a"},
+            {"Strict-Transport-Security", "max-age=31536000; includeSubDomains; preload"},
+            {"Set-Cookie", "session=4f1c7e0b2a9d8c6e5f3a1b0d; Path=/; Secure; HttpOnly"},
+            {"Set-Cookie", "_ga=GA1.2.1283746501.1647331951; Path=/; Domain=example.com"},
+    };
+
+    private final HttpHeader.Builder builder = HttpHeader.builder();
+    private HttpHeader header;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final HeaderFieldsParser parser = new HeaderFieldsParser();
+        final ByteBuf fields = Unpooled.copiedBuffer(ResponseHeads.fields(12), StandardCharsets.US_ASCII);
+        parser.feed(fields);
+        fields.release();
+        header = parser.getResult();
+    }
+
+    private HttpHeader build() {
+        builder.reset();
+        for (String[] field : FIELDS) {
+            builder.addField(field[0], field[1]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public Optional<String> lookupByString() {
+        return header.getHeader("content-length");
+    }
+
+    @Benchmark
+    public Optional<String> lookupByName() {
+        return header.getHeader(HttpHeaderName.CONTENT_LENGTH);
+    }
+
+    @Benchmark
+    public Optional<String> lookupMissing() {
+        return header.getHeader("Transfer-Encoding");
+    }
+
+    @Benchmark
+    public HttpHeader builderBuild() {
+        return build();
+    }
+}
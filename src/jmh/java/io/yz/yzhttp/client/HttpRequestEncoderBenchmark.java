@@ -0,0 +1,66 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpRequest.Builder#build()} and {@link HttpRequestEncoder#encode} of the built request into a pooled
+ * buffer, for requests with {@code fields} header fields besides {@code Host} and {@code User-Agent}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpRequestEncoderBenchmark {
+    private static final byte[] NO_EXTRA_FIELDS = new byte[0];
+
+    @Param({"2", "10", "30"})
+    public int fields;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private HttpRequest.Builder builder;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        builder = HttpRequest.builder()
+                .setHost("api.example.com")
+                .setPort(80)
+                .setMethod(HttpMethod.GET)
+                .setPath("/v1/items/12345?fields=id,name,price&lang=en")
+                .setVersion(HttpVersion.HTTP_1_1);
+        for (int i = 0; i < fields; i++) {
+            builder.addHeader("X-Field-" + i, "value-" + i + "-0123456789abcdef");
+        }
+        request = builder.build();
+    }
+
+    @Benchmark
+    public HttpRequest build() {
+        return builder.build();
+    }
+
+    @Benchmark
+    public int encode() {
+        final ByteBuf encoded = HttpRequestEncoder.encode(alloc, request, NO_EXTRA_FIELDS);
+        final int length = encoded.readableBytes();
+        encoded.release();
+        return length;
+    }
+
+    @Benchmark
+    public int buildAndEncode() {
+        final ByteBuf encoded = HttpRequestEncoder.encode(alloc, builder.build(), NO_EXTRA_FIELDS);
+        final int length = encoded.readableBytes();
+        encoded.release();
+        return length;
+    }
+}
@@ -0,0 +1,215 @@
+package io.yz.yzhttp.client;
+
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of {@link YzClient} against a {@link LocalHttpServer} on the same box, run with
+ * {@code ./gradlew loadTest -PloadArgs="--mode open --rate 20000"}.
+ * <p>
+ * The closed loop keeps {@code --concurrency} requests in flight, each one sent as soon as the previous one of its
+ * slot completed, and finds the client's capacity. The open loop starts {@code --rate} requests a second on schedule
+ * whatever the responses do, and measures every latency from the moment its request was due rather than from when it
+ * was actually sent, so a stall is charged to every request it delayed instead of being hidden by coordinated
+ * omission.
+ * <p>
+ * Options, with their defaults:
+ * <pre>
+ * --mode closed        closed or open
+ * --concurrency 64     requests in flight, closed loop
+ * --rate 10000         requests a second, open loop
+ * --warmup 5           seconds run and discarded first
+ * --duration 30        seconds measured
+ * --body 1024          response body bytes
+ * --chunk 0            chunk size of a chunked body, 0 for a Content-Length
+ * --delay 0            milliseconds the server waits before each response
+ * --keep-alive true    false closes the connection after each response
+ * --connections 64     maximum connections of the client
+ * --pipeline 1         maximum requests pipelined on a connection
+ * --transport AUTO     AUTO, EPOLL or NIO, for the client and the server
+ * </pre>
+ */
+public final class LoadTest {
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99, 100};
+    private static final String HOST = "127.0.0.1";
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = options(args);
+        final String mode = option(options, "mode", "closed");
+        final int concurrency = Integer.parseInt(option(options, "concurrency", "64"));
+        final double rate = Double.parseDouble(option(options, "rate", "10000"));
+        final long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(option(options, "warmup", "5")));
+        final long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(option(options, "duration", "30")));
+        final int body = Integer.parseInt(option(options, "body", "1024"));
+        final int chunk = Integer.parseInt(option(options, "chunk", "0"));
+        final long delay = Long.parseLong(option(options, "delay", "0"));
+        final boolean keepAlive = Boolean.parseBoolean(option(options, "keep-alive", "true"));
+        final int connections = Integer.parseInt(option(options, "connections", "64"));
+        final int pipeline = Integer.parseInt(option(options, "pipeline", "1"));
+        final Transport transport = Transport.valueOf(option(options, "transport", "AUTO"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("unknown options " + options.keySet());
+        }
+        if (!mode.equals("closed") && !mode.equals("open")) {
+            throw new IllegalArgumentException("mode must be closed or open");
+        }
+
+        final YzClientConfig config = YzClientConfig.builder()
+                .setTransport(transport)
+                .setMaxConnectionsPerHost(connections)
+                .setMaxPipelineDepth(pipeline)
+                .setMaxPendingRequestsPerHost(Math.max(1024, concurrency))
+                .build();
+
+        try (LocalHttpServer server = new LocalHttpServer(transport, body, chunk, delay, keepAlive);
+             YzClient client = new YzClient(config)) {
+            final HttpRequest request = HttpRequest.builder()
+                    .setHost(HOST)
+                    .setPort(server.port())
+                    .setMethod(HttpMethod.GET)
+                    .setPath("/")
+                    .setVersion(HttpVersion.HTTP_1_1)
+                    .build();
+
+            System.out.printf("%s loop, %s, body %d bytes%s, delay %d ms, keep-alive %b, %d connections, pipeline %d%n",
+                    mode, mode.equals("closed") ? "concurrency " + concurrency : "rate " + rate + "/s",
+                    body, chunk > 0 ? " in " + chunk + " byte chunks" : "", delay, keepAlive, connections, pipeline);
+
+            run(client, request, mode, concurrency, rate, warmup);
+            final long bytesBefore = client.metrics().host(HOST).bytesRead();
+            final Phase phase = run(client, request, mode, concurrency, rate, duration);
+            final long bytes = client.metrics().host(HOST).bytesRead() - bytesBefore;
+            report(phase, bytes);
+        }
+    }
+
+    private static Phase run(final YzClient client, final HttpRequest request, final String mode,
+                             final int concurrency, final double rate, final long duration) throws InterruptedException {
+        final Phase phase = new Phase(duration);
+        if (mode.equals("closed")) {
+            final CountDownLatch stopped = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                next(client, request, phase, stopped);
+            }
+            stopped.await();
+        } else {
+            for (long i = 0; ; i++) {
+                final long due = phase.start + (long) (i * 1e9 / rate);
+                if (due - phase.end >= 0) {
+                    break;
+                }
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                phase.outstanding.incrementAndGet();
+                client.sendAsync(request).whenComplete((response, cause) -> phase.complete(due, cause));
+            }
+            phase.drain();
+        }
+        phase.finished = System.nanoTime();
+        return phase;
+    }
+
+    /**
+     * Sends the next request of a closed-loop slot, until the phase is over.
+     */
+    private static void next(final YzClient client, final HttpRequest request, final Phase phase,
+                             final CountDownLatch stopped) {
+        final long start = System.nanoTime();
+        if (start - phase.end >= 0) {
+            stopped.countDown();
+            return;
+        }
+        phase.outstanding.incrementAndGet();
+        client.sendAsync(request).whenComplete((response, cause) -> {
+            phase.complete(start, cause);
+            if (cause == null) {
+                next(client, request, phase, stopped);
+            } else {
+                // a failure may complete on this stack, do not recurse into the next one
+                ForkJoinPool.commonPool().execute(() -> next(client, request, phase, stopped));
+            }
+        });
+    }
+
+    private static void report(final Phase phase, final long bytes) {
+        final double seconds = (phase.finished - phase.start) / 1e9;
+        final LatencyHistogram latency = phase.latency;
+        System.out.printf("requests %d, errors %d, %.0f req/s, %.1f MiB/s read%n",
+                latency.count(), phase.errors.sum(), latency.count() / seconds, bytes / seconds / (1 << 20));
+        System.out.printf("latency mean %.1f us%n", latency.mean() / 1e3);
+        for (double percentile : PERCENTILES) {
+            System.out.printf("  p%-6s %10.1f us%n", percentile, latency.valueAtPercentile(percentile) / 1e3);
+        }
+    }
+
+    private static Map<String, String> options(final String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String option(final Map<String, String> options, final String name, final String defaultValue) {
+        final String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Latencies of the requests started between {@link #start} and {@link #end}.
+     */
+    private static final class Phase {
+        private final long start = System.nanoTime();
+        private final long end;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong outstanding = new AtomicLong();
+        private final CountDownLatch drained = new CountDownLatch(1);
+        private volatile boolean draining;
+        private long finished;
+
+        private Phase(final long duration) {
+            this.end = start + duration;
+        }
+
+        /**
+         * @param since when the request was sent, or was due to be
+         */
+        private void complete(final long since, final Throwable cause) {
+            if (cause == null) {
+                latency.record(System.nanoTime() - since);
+            } else {
+                errors.increment();
+            }
+            if (outstanding.decrementAndGet() == 0 && draining) {
+                drained.countDown();
+            }
+        }
+
+        /**
+         * Waits for the requests still in flight, the open loop stops starting new ones first.
+         */
+        private void drain() throws InterruptedException {
+            draining = true;
+            if (outstanding.get() != 0) {
+                drained.await();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback HTTP/1.1 stub which answers every request head with the same response.
+ * <p>
+ * The body is sent with a Content-Length, or chunked when {@code chunkSize > 0}. Responses are written
+ * {@code delayMillis} after their request arrived, in request order. Without keep-alive the response says
+ * {@code Connection: close} and the connection is closed after it.
+ */
+final class LocalHttpServer implements Closeable {
+    private final EventLoopGroup loop;
+    private final Channel channel;
+
+    LocalHttpServer(final Transport transport, final int bodySize) throws InterruptedException {
+        this(transport, bodySize, 0, 0, true);
+    }
+
+    LocalHttpServer(final Transport transport, final int bodySize, final int chunkSize, final long delayMillis,
+                    final boolean keepAlive) throws InterruptedException {
+        final ByteBuf response = Unpooled.unreleasableBuffer(response(bodySize, chunkSize, keepAlive));
+
+        this.loop = transport.newEventLoopGroup(1);
+        this.channel = new ServerBootstrap()
+                .group(loop)
+                .channel(transport.serverSocketChannelClass())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ResponseWriter(response, delayMillis, keepAlive));
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+    }
+
+    int port() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        loop.shutdownGracefully().syncUninterruptibly();
+    }
+
+    private static ByteBuf response(final int bodySize, final int chunkSize, final boolean keepAlive) {
+        final ByteBuf buf = Unpooled.directBuffer();
+        buf.writeCharSequence("HTTP/1.1 200 OK\r\n" +
+                "Server: LocalHttpServer\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                (chunkSize > 0 ? "Transfer-Encoding: chunked\r\n" : "Content-Length: " + bodySize + "\r\n") +
+                (keepAlive ? "" : "Connection: close\r\n") +
+                "\r\n", StandardCharsets.US_ASCII);
+        if (chunkSize > 0) {
+            for (int written = 0; written < bodySize; written += chunkSize) {
+                final int size = Math.min(chunkSize, bodySize - written);
+                buf.writeCharSequence(Integer.toHexString(size) + "\r\n", StandardCharsets.US_ASCII);
+                buf.writeBytes(body(size));
+                buf.writeCharSequence("\r\n", StandardCharsets.US_ASCII);
+            }
+            buf.writeCharSequence("0\r\n\r\n", StandardCharsets.US_ASCII);
+        } else {
+            buf.writeBytes(body(bodySize));
+        }
+        return buf;
+    }
+
+    private static byte[] body(final int size) {
+        final byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'a');
+        return body;
+    }
+
+    /**
+     * Writes one response for every CRLFCRLF seen, requests carry no body.
+     */
+    private static final class ResponseWriter extends ChannelInboundHandlerAdapter {
+        private final ByteBuf response;
+        private final long delayMillis;
+        private final boolean keepAlive;
+        private int matched;
+        private boolean closing;
+
+        private ResponseWriter(final ByteBuf response, final long delayMillis, final boolean keepAlive) {
+            this.response = response;
+            this.delayMillis = delayMillis;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            final ByteBuf buf = (ByteBuf) msg;
+            int responses = 0;
+            try {
+                for (int i = buf.readerIndex(); i < buf.writerIndex(); i++) {
+                    final byte b = buf.getByte(i);
+                    if (b == (matched % 2 == 0 ? '\r' : '\n')) {
+                        matched++;
+                        if (matched == 4) {
+                            matched = 0;
+                            responses++;
+                        }
+                    } else {
+                        matched = b == '\r' ? 1 : 0;
+                    }
+                }
+            } finally {
+                buf.release();
+            }
+
+            if (responses == 0 || closing) {
+                return;
+            }
+            if (!keepAlive) {
+                closing = true;
+                responses = 1;
+            }
+            if (delayMillis > 0) {
+                final int count = responses;
+                ctx.executor().schedule(() -> write(ctx, count), delayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                write(ctx, responses);
+            }
+        }
+
+        private void write(final ChannelHandlerContext ctx, final int responses) {
+            for (int i = 0; i < responses; i++) {
+                ctx.write(response.duplicate());
+            }
+            if (closing) {
+                ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            } else {
+                ctx.flush();
+            }
+        }
+    }
+}
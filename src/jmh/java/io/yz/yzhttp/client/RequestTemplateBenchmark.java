@@ -0,0 +1,73 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one request head through {@link HttpRequestEncoder}: a new {@link HttpRequest} per call against a call
+ * of a {@link RequestTemplate}. Only the path and one header field change between calls.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestTemplateBenchmark {
+    private static final String[] PATHS = {"/items/1", "/items/22", "/items/333", "/items/4444"};
+
+    private EmbeddedChannel channel;
+    private RequestTemplate template;
+    private int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        channel = new EmbeddedChannel(HttpRequestEncoder.INSTANCE);
+        template = builder().buildTemplate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.close();
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpRequest.Builder builder() {
+        return HttpRequest.builder()
+                .setHost("api.example.com")
+                .setPort(80)
+                .setMethod(HttpMethod.GET)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .addHeader("Accept", "application/json")
+                .addHeader("Accept-Encoding", "identity")
+                .addHeader("Cache-Control", "no-cache");
+    }
+
+    @Benchmark
+    public int perCallRequest() {
+        final String path = PATHS[call++ & 3];
+        return write(builder().setPath(path).addHeader("X-Request-Id", path).build());
+    }
+
+    @Benchmark
+    public int template() {
+        final String path = PATHS[call++ & 3];
+        final Map<String, String> header = Collections.singletonMap("X-Request-Id", path);
+        return write(template.request(path, header));
+    }
+
+    private int write(final HttpRequest request) {
+        channel.writeOutbound(request);
+        final ByteBuf encoded = channel.readOutbound();
+        final int length = encoded.readableBytes();
+        encoded.release();
+        return length;
+    }
+}
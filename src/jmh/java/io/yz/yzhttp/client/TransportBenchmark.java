@@ -0,0 +1,107 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import io.yz.yzhttp.client.low.HttpObjectHandler;
+import io.yz.yzhttp.client.low.HttpResponseEndEvent;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive round trips over loopback, NIO against native epoll.
+ * <p>
+ * Every benchmark thread owns one connection bootstrapped by {@link YzClient#bootstrap}, so the socket options
+ * are the ones the client really uses. Run with {@code -t} to raise the connection count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+    @Param({"NIO", "EPOLL"})
+    public Transport transport;
+
+    @Param({"64", "16384"})
+    public int bodySize;
+
+    private LocalHttpServer server;
+    private EventLoopGroup loop;
+    private YzClientConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        config = YzClientConfig.builder().setTransport(transport).build();
+        server = new LocalHttpServer(transport, bodySize);
+        loop = transport.newEventLoopGroup(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loop.shutdownGracefully().syncUninterruptibly();
+        server.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Connection {
+        private Channel channel;
+        private HttpRequest request;
+        private volatile CompletableFuture<Void> pending;
+
+        @Setup(Level.Trial)
+        public void connect(final TransportBenchmark benchmark) throws InterruptedException {
+            request = HttpRequest.builder()
+                    .setHost("127.0.0.1")
+                    .setPort(benchmark.server.port())
+                    .setMethod(HttpMethod.GET)
+                    .setPath("/")
+                    .setVersion(HttpVersion.HTTP_1_1)
+                    .build();
+
+            channel = YzClient.bootstrap(benchmark.loop, benchmark.config)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(HttpRequestEncoder.INSTANCE, new HttpObjectHandler(), new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                    ReferenceCountUtil.release(msg);
+                                }
+
+                                @Override
+                                public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                                    if (evt instanceof HttpResponseEndEvent) {
+                                        pending.complete(null);
+                                    }
+                                }
+                            });
+                        }
+                    })
+                    .connect("127.0.0.1", benchmark.server.port())
+                    .sync()
+                    .channel();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    @Benchmark
+    public void roundTrip(final Connection connection) throws Exception {
+        final CompletableFuture<Void> pending = new CompletableFuture<>();
+        connection.pending = pending;
+        connection.channel.writeAndFlush(connection.request);
+        pending.get();
+    }
+}
@@ -0,0 +1,77 @@
+package io.yz.yzhttp.client.low;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Response heads as seen from real servers, for the parser benchmarks.
+ */
+public final class ResponseHeads {
+    private static final List<String> FIELDS = Arrays.asList(
+            "Date: Tue, 15 Mar 2022 08:12:31 GMT",
+            "Content-Type: application/json; charset=utf-8",
+            "Connection: keep-alive",
+            "Server: nginx/1.20.2",
+            "Cache-Control: private, max-age=0, must-revalidate",
+            "ETag: W/\"5e1b-17f8c3d2a18\"",
+            "Vary: Accept-Encoding, Origin",
+            "X-Request-Id: 0d5c2f0e-9a4b-4c57-8f0e-3b7b6f7f1c2a",
+            "Strict-Transport-Security: max-age=31536000; includeSubDomains; preload",
+            "Access-Control-Allow-Origin: https://www.example.com",
+            "X-Content-Type-Options: nosniff",
+            "X-Frame-Options: SAMEORIGIN",
+            "Set-Cookie: session=4f1c7e0b2a9d8c6e5f3a1b0d; Path=/; Secure; HttpOnly; SameSite=Lax",
+            "Set-Cookie: _ga=GA1.2.1283746501.1647331951; Path=/; Domain=example.com; Expires=Thu, 14 Mar 2024 08:12:31 GMT",
+            "Last-Modified: Mon, 14 Mar 2022 17:40:02 GMT",
+            "Age: 42",
+            "Via: 1.1 varnish, 1.1 3f6c2a1b9e7d.cloudfront.net (CloudFront)",
+            "X-Cache: Hit from cloudfront",
+            "X-Amz-Cf-Pop: FRA56-P5",
+            "X-Amz-Cf-Id: vJq1k3c9bF0sRzYt2xWw8mNn4pLl6oKk5jHh7gGg9fFe1dDc3sSa==",
+            "Content-Security-Policy: default-src 'self'; img-src 'self' data: https:; script-src 'self' 'unsafe-inline' https://cdn.example.com",
+            "Referrer-Policy: strict-origin-when-cross-origin",
+            "Permissions-Policy: geolocation=(), microphone=(), camera=()",
+            "X-XSS-Protection: 0",
+            "Alt-Svc: h3=\":443\"; ma=86400",
+            "Accept-Ranges: bytes",
+            "Timing-Allow-Origin: *",
+            "Report-To: {\"group\":\"default\",\"max_age\":31536000,\"endpoints\":[{\"url\":\"https://report.example.com/r\"}]}",
+            "NEL: {\"report_to\":\"default\",\"max_age\":31536000,\"include_subdomains\":true}",
+            "Server-Timing: cdn-cache;desc=HIT, edge;dur=1, origin;dur=0",
+            "X-Served-By: cache-fra19180-FRA",
+            "X-Cache-Hits: 3",
+            "X-Timer: S1647331951.281734,VS0,VE0",
+            "CF-Ray: 6ec2a4b1fd3a4c2e-FRA",
+            "Expect-CT: max-age=604800, report-uri=\"https://report.example.com/ct\"",
+            "X-Powered-By: Express",
+            "X-RateLimit-Limit: 5000",
+            "X-RateLimit-Remaining: 4987",
+            "X-RateLimit-Reset: 1647335551",
+            "Link: </assets/app.css>; rel=preload; as=style, </assets/app.js>; rel=preload; as=script"
+    );
+
+    public static final int MAX_FIELDS = FIELDS.size();
+
+    private ResponseHeads() {
+    }
+
+    /**
+     * @return status-line, {@code Content-Length: bodyLength}, the first {@code fields - 1} realistic fields and the
+     * empty line
+     */
+    public static String head(final int fields, final int bodyLength) {
+        final StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\nContent-Length: ").append(bodyLength).append("\r\n");
+        for (String field : FIELDS.subList(0, fields - 1)) {
+            head.append(field).append("\r\n");
+        }
+        return head.append("\r\n").toString();
+    }
+
+    /**
+     * @return the header section of {@link #head} without the status-line
+     */
+    public static String fields(final int fields) {
+        final String head = head(fields, 0);
+        return head.substring(head.indexOf("\r\n") + 2);
+    }
+}
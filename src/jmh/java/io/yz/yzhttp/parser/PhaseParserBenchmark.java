@@ -0,0 +1,92 @@
+package io.yz.yzhttp.parser;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.yz.yzhttp.client.HttpHeader;
+import io.yz.yzhttp.client.low.ResponseHeads;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each Kotlin phase parser alone on one complete input, reset between calls as {@link HttpResponseParser} does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PhaseParserBenchmark {
+    private final HttpVersionParser httpVersionParser = new HttpVersionParser();
+    private final StatusCodeParser statusCodeParser = new StatusCodeParser();
+    private final ReasonPhraseParser reasonPhraseParser = new ReasonPhraseParser();
+    private final HeaderFieldsParser headerFieldsParser = new HeaderFieldsParser();
+    private final ChunkSizeParser chunkSizeParser = new ChunkSizeParser();
+
+    private ByteBuf httpVersion;
+    private ByteBuf statusCode;
+    private ByteBuf reasonPhrase;
+    private ByteBuf headerFields;
+    private ByteBuf chunkSize;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        httpVersion = direct("HTTP/1.1");
+        statusCode = direct("200");
+        reasonPhrase = direct("Not Modified\r\n");
+        headerFields = direct(ResponseHeads.fields(12));
+        chunkSize = direct("1f40;name=value\r\n");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpVersion.release();
+        statusCode.release();
+        reasonPhrase.release();
+        headerFields.release();
+        chunkSize.release();
+    }
+
+    private static ByteBuf direct(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        return Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+    }
+
+    @Benchmark
+    public HttpVersion httpVersion() {
+        httpVersionParser.reset();
+        httpVersionParser.feed(httpVersion.readerIndex(0));
+        return httpVersionParser.getResult();
+    }
+
+    @Benchmark
+    public int statusCode() {
+        statusCodeParser.reset();
+        statusCodeParser.feed(statusCode.readerIndex(0));
+        return statusCodeParser.getResult();
+    }
+
+    @Benchmark
+    public String reasonPhrase() {
+        reasonPhraseParser.reset();
+        reasonPhraseParser.feed(reasonPhrase.readerIndex(0));
+        return reasonPhraseParser.getResult();
+    }
+
+    @Benchmark
+    public HttpHeader headerFields() {
+        headerFieldsParser.reset();
+        headerFieldsParser.feed(headerFields.readerIndex(0));
+        return headerFieldsParser.getResult();
+    }
+
+    @Benchmark
+    public long chunkSize() {
+        chunkSizeParser.reset();
+        chunkSizeParser.feed(chunkSize.readerIndex(0));
+        return chunkSizeParser.getResult();
+    }
+}
@@ -0,0 +1,80 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Aggregates the whole response into a {@link HttpResponse}, for {@link YzClient#sendAsync}.
+ */
+final class AggregatingExchange extends HttpExchange {
+    private static final int MAX_INITIAL_BODY = 1 << 20;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+
+    private HttpResponseHead head;
+    private byte[] body = EMPTY;
+    private int bodyLength;
+
+    AggregatingExchange(final HttpRequest request) {
+        super(request);
+    }
+
+    @Override
+    CompletableFuture<HttpResponse> future() {
+        return future;
+    }
+
+    @Override
+    void head(final ChannelHandlerContext ctx, final HttpResponseHead head) {
+        this.head = head;
+        if (head.contentLength() > 0) {
+            body = new byte[(int) Math.min(head.contentLength(), MAX_INITIAL_BODY)];
+        }
+    }
+
+    @Override
+    void content(final ByteBuf content) {
+        try {
+            final int length = content.readableBytes();
+            if (bodyLength + length > body.length) {
+                if (bodyLength + length < 0) {
+                    throw new IllegalStateException("message-body is too large to aggregate");
+                }
+                final byte[] grown = new byte[Math.max(bodyLength + length, Math.max(256, body.length * 2))];
+                System.arraycopy(body, 0, grown, 0, bodyLength);
+                body = grown;
+            }
+            content.getBytes(content.readerIndex(), body, bodyLength, length);
+            bodyLength += length;
+        } finally {
+            content.release();
+        }
+    }
+
+    @Override
+    void complete() {
+        if (head == null) {
+            fail(new ProtocolParseException());
+            return;
+        }
+        future.complete(new HttpResponse(
+                head.httpVersion(),
+                head.statusCode(),
+                head.reasonPhrase(),
+                head.httpHeader(),
+                ByteBuffer.wrap(body, 0, bodyLength)
+        ));
+        ended(head.statusCode(), null);
+    }
+
+    @Override
+    void fail(final Throwable cause) {
+        future.completeExceptionally(cause);
+        ended(0, cause);
+    }
+}
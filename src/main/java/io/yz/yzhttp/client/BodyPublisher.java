@@ -0,0 +1,168 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+
+/**
+ * Message-body of a streamed response, published to a single subscriber.
+ * <p>
+ * The connection has {@code autoRead} off while the body streams: only the slices of the last socket read are
+ * buffered here, and the next read is only asked for once the subscriber has demand left and nothing buffered.
+ * All state is confined to the connection's event loop, subscriber calls are hopped onto it.
+ */
+final class BodyPublisher implements Publisher<ByteBuf> {
+    private final Channel channel;
+    private final Queue<ByteBuf> buffered = new ArrayDeque<>();
+
+    private Subscriber<? super ByteBuf> subscriber;
+    private long demand;
+    private boolean ended;
+    private Throwable error;
+    /**
+     * A terminal signal was delivered or the subscription was cancelled.
+     */
+    private boolean done;
+    private boolean draining;
+
+    BodyPublisher(final Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super ByteBuf> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber can not be null");
+
+        inEventLoop(() -> {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("message-body can only be subscribed once"));
+                return;
+            }
+
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    inEventLoop(() -> BodyPublisher.this.request(n));
+                }
+
+                @Override
+                public void cancel() {
+                    inEventLoop(BodyPublisher.this::cancel);
+                }
+            });
+            drain();
+        });
+    }
+
+    void content(final ByteBuf content) {
+        if (done) {
+            content.release();
+            return;
+        }
+        buffered.add(content);
+        drain();
+    }
+
+    void end() {
+        ended = true;
+        drain();
+    }
+
+    void fail(final Throwable cause) {
+        if (error == null) {
+            error = cause;
+        }
+        drain();
+    }
+
+    private void request(final long n) {
+        if (done) {
+            return;
+        }
+        if (n <= 0) {
+            fail(new IllegalArgumentException("request must be positive, was " + n));
+            return;
+        }
+
+        demand += n;
+        if (demand < 0) {
+            demand = Long.MAX_VALUE;
+        }
+        drain();
+    }
+
+    private void cancel() {
+        if (done) {
+            return;
+        }
+        done = true;
+        releaseBuffered();
+        if (!ended) {
+            // the rest of the body is still on the connection, it can not be reused
+            channel.close();
+        }
+    }
+
+    private void drain() {
+        if (draining || subscriber == null || done) {
+            return;
+        }
+
+        draining = true;
+        try {
+            while (demand > 0 && !buffered.isEmpty()) {
+                demand--;
+                subscriber.onNext(buffered.poll());
+                if (done) {
+                    return;
+                }
+            }
+
+            if (error != null) {
+                done = true;
+                releaseBuffered();
+                if (!ended) {
+                    channel.close();
+                }
+                subscriber.onError(error);
+            } else if (ended && buffered.isEmpty()) {
+                done = true;
+                subscriber.onComplete();
+            } else if (demand > 0 && !ended) {
+                channel.read();
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    private void releaseBuffered() {
+        for (ByteBuf content; (content = buffered.poll()) != null; ) {
+            content.release();
+        }
+    }
+
+    private void inEventLoop(final Runnable task) {
+        if (channel.eventLoop().inEventLoop()) {
+            task.run();
+        } else {
+            channel.eventLoop().execute(task);
+        }
+    }
+}
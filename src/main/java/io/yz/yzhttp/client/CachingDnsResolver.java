@@ -0,0 +1,298 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.ResolvedAddressTypes;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Non-blocking name resolution shared by every connection of a {@link YzClient}.
+ * <p>
+ * IP literals and hosts file entries are answered right away. Other names are looked up with an A query, then an
+ * AAAA query when there is no IPv4 address, by a {@link DnsNameResolver} on a single event loop. An answer is cached
+ * for the smallest TTL of its records, clamped to the configured bounds, and a name that does not exist for the
+ * negative TTL. Lookups of one name while a query for it is running share that query.
+ * <p>
+ * A cached answer read after {@value #REFRESH_AHEAD_PERCENT}% of its TTL starts a new query and is served until it
+ * expires, so a name in steady use never waits on the network. Timeouts and server failures are not cached.
+ * <p>
+ * An expired entry is dropped when its name is looked up again, and every {@value #SWEEP_INTERVAL_SECONDS} seconds
+ * otherwise, so names resolved once do not stay in the cache.
+ * <p>
+ * Resolutions for new connections are timed as {@link RequestPhase#DNS}.
+ */
+final class CachingDnsResolver implements Closeable {
+    private static final int REFRESH_AHEAD_PERCENT = 80;
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private final EventLoop loop;
+    private final DnsNameResolver dns;
+    private final HostsFileEntriesResolver hosts;
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoTime;
+    private final MetricsListener listener;
+    private final ConcurrentMap<String, Entry> cache;
+    private final ConcurrentMap<String, Promise<List<InetAddress>>> queries;
+    private final AddressResolverGroup<InetSocketAddress> group;
+    private final ScheduledFuture<?> sweep;
+
+    CachingDnsResolver(final EventLoop loop, final YzClientConfig config, final MetricsListener listener) {
+        this(loop, config, listener, System::nanoTime);
+    }
+
+    CachingDnsResolver(final EventLoop loop, final YzClientConfig config, final MetricsListener listener,
+                       final LongSupplier nanoTime) {
+        final DnsNameResolverBuilder builder = new DnsNameResolverBuilder(loop)
+                .channelType(config.transport().datagramChannelClass())
+                .resolveCache(NoopDnsCache.INSTANCE);
+        if (!config.dnsServers().isEmpty()) {
+            builder.nameServerProvider(new SequentialDnsServerAddressStreamProvider(config.dnsServers()));
+        }
+
+        this.loop = loop;
+        this.dns = builder.build();
+        this.hosts = config.hostsFileEntriesResolver();
+        this.minTtlNanos = TimeUnit.SECONDS.toNanos(config.dnsMinTtlSeconds());
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(config.dnsMaxTtlSeconds());
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(config.dnsNegativeTtlSeconds());
+        this.nanoTime = nanoTime;
+        this.listener = listener;
+        this.cache = new ConcurrentHashMap<>();
+        this.queries = new ConcurrentHashMap<>();
+        this.group = new AddressResolverGroup<InetSocketAddress>() {
+            @Override
+            protected AddressResolver<InetSocketAddress> newResolver(final EventExecutor executor) {
+                return new Resolver(executor).asAddressResolver();
+            }
+        };
+        this.sweep = loop.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return resolvers for {@link io.netty.bootstrap.Bootstrap#resolver}, all backed by this cache
+     */
+    AddressResolverGroup<InetSocketAddress> group() {
+        return group;
+    }
+
+    /**
+     * @return future completed on the resolver's event loop, or already completed when the answer is known
+     */
+    Future<List<InetAddress>> lookup(final String host) {
+        final byte[] literal = NetUtil.createByteArrayFromIpAddressString(host);
+        if (literal != null) {
+            final InetAddress address = address(host, literal);
+            return address != null
+                    ? loop.newSucceededFuture(Collections.singletonList(address))
+                    : loop.newFailedFuture(new UnknownHostException(host));
+        }
+
+        final InetAddress hostsEntry = hosts.address(host, ResolvedAddressTypes.IPV4_PREFERRED);
+        if (hostsEntry != null) {
+            return loop.newSucceededFuture(Collections.singletonList(hostsEntry));
+        }
+
+        final String name = host.toLowerCase(Locale.ROOT);
+        final Entry entry = cache.get(name);
+        final long now = nanoTime.getAsLong();
+        if (entry != null) {
+            if (now - entry.expiresAt >= 0) {
+                cache.remove(name, entry);
+            } else if (entry.cause != null) {
+                return loop.newFailedFuture(entry.cause);
+            } else {
+                if (now - entry.refreshAt >= 0) {
+                    query(name);
+                }
+                return loop.newSucceededFuture(entry.addresses);
+            }
+        }
+        return query(name);
+    }
+
+    /**
+     * Drops every expired entry.
+     */
+    void sweep() {
+        final long now = nanoTime.getAsLong();
+        cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+
+    /**
+     * @return names in the cache, expired ones included
+     */
+    int size() {
+        return cache.size();
+    }
+
+    private Future<List<InetAddress>> query(final String name) {
+        final Promise<List<InetAddress>> promise = loop.newPromise();
+        final Promise<List<InetAddress>> running = queries.putIfAbsent(name, promise);
+        if (running != null) {
+            return running;
+        }
+
+        query(name, DnsRecordType.A, promise);
+        return promise;
+    }
+
+    private void query(final String name, final DnsRecordType type, final Promise<List<InetAddress>> promise) {
+        dns.resolveAll(new DefaultDnsQuestion(name, type))
+                .addListener((GenericFutureListener<Future<List<DnsRecord>>>) future -> {
+                    if (!future.isSuccess()) {
+                        if (future.cause() instanceof UnknownHostException && type == DnsRecordType.A) {
+                            query(name, DnsRecordType.AAAA, promise);
+                        } else {
+                            failed(name, future.cause(), promise);
+                        }
+                        return;
+                    }
+
+                    final List<InetAddress> addresses = new ArrayList<>();
+                    long ttlSeconds = Long.MAX_VALUE;
+                    for (final DnsRecord record : future.getNow()) {
+                        if (record instanceof DnsRawRecord) {
+                            final InetAddress address = address(name, ((DnsRawRecord) record).content());
+                            if (address != null) {
+                                addresses.add(address);
+                                ttlSeconds = Math.min(ttlSeconds, record.timeToLive());
+                            }
+                        }
+                        ReferenceCountUtil.release(record);
+                    }
+
+                    if (!addresses.isEmpty()) {
+                        resolved(name, addresses, ttlSeconds, promise);
+                    } else if (type == DnsRecordType.A) {
+                        query(name, DnsRecordType.AAAA, promise);
+                    } else {
+                        failed(name, new UnknownHostException("no address for " + name), promise);
+                    }
+                });
+    }
+
+    private void resolved(final String name, final List<InetAddress> addresses, final long ttlSeconds,
+                          final Promise<List<InetAddress>> promise) {
+        final long ttlNanos = Math.max(minTtlNanos, Math.min(maxTtlNanos, TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        final long now = nanoTime.getAsLong();
+        final List<InetAddress> result = Collections.unmodifiableList(addresses);
+
+        cache.put(name, new Entry(result, null, now + ttlNanos, now + ttlNanos / 100 * REFRESH_AHEAD_PERCENT));
+        queries.remove(name, promise);
+        promise.trySuccess(result);
+    }
+
+    private void failed(final String name, final Throwable cause, final Promise<List<InetAddress>> promise) {
+        if (cause instanceof UnknownHostException && negativeTtlNanos > 0) {
+            final long expiresAt = nanoTime.getAsLong() + negativeTtlNanos;
+            cache.put(name, new Entry(null, cause, expiresAt, expiresAt));
+        }
+        queries.remove(name, promise);
+        promise.tryFailure(cause);
+    }
+
+    private static InetAddress address(final String name, final ByteBuf content) {
+        final int length = content.readableBytes();
+        if (length != 4 && length != 16) {
+            return null;
+        }
+        return address(name, ByteBufUtil.getBytes(content));
+    }
+
+    private static InetAddress address(final String name, final byte[] bytes) {
+        try {
+            return InetAddress.getByAddress(name, bytes);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        sweep.cancel(false);
+        group.close();
+        dns.close();
+        cache.clear();
+    }
+
+    private static final class Entry {
+        private final List<InetAddress> addresses;
+        private final Throwable cause;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        private Entry(final List<InetAddress> addresses, final Throwable cause, final long expiresAt, final long refreshAt) {
+            this.addresses = addresses;
+            this.cause = cause;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    private final class Resolver extends InetNameResolver {
+        private Resolver(final EventExecutor executor) {
+            super(executor);
+        }
+
+        @Override
+        protected void doResolve(final String inetHost, final Promise<InetAddress> promise) {
+            final long start = System.nanoTime();
+            lookup(inetHost).addListener((GenericFutureListener<Future<List<InetAddress>>>) future -> {
+                listener.phase(inetHost, RequestPhase.DNS, System.nanoTime() - start);
+                if (future.isSuccess()) {
+                    promise.trySuccess(future.getNow().get(0));
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            });
+        }
+
+        @Override
+        protected void doResolveAll(final String inetHost, final Promise<List<InetAddress>> promise) {
+            final long start = System.nanoTime();
+            lookup(inetHost).addListener((GenericFutureListener<Future<List<InetAddress>>>) future -> {
+                listener.phase(inetHost, RequestPhase.DNS, System.nanoTime() - start);
+                if (future.isSuccess()) {
+                    promise.trySuccess(future.getNow());
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            });
+        }
+    }
+}
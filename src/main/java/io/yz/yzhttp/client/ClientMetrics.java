@@ -0,0 +1,102 @@
+package io.yz.yzhttp.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metrics of a {@link YzClient} by host, always recorded, see {@link YzClient#metrics()}.
+ * <p>
+ * Recording is a map lookup plus a few atomic increments, without locks or allocation once a host has been seen.
+ */
+public final class ClientMetrics implements MetricsListener {
+    private final ConcurrentMap<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    ClientMetrics() {
+    }
+
+    /**
+     * @return metrics of {@code host}, {@code null} if no request went there
+     */
+    public HostMetrics host(final String host) {
+        return hosts.get(host);
+    }
+
+    /**
+     * @return live view of every host's metrics
+     */
+    public Map<String, HostMetrics> hosts() {
+        return Collections.unmodifiableMap(hosts);
+    }
+
+    private HostMetrics metrics(final String host) {
+        final HostMetrics metrics = hosts.get(host);
+        return metrics != null ? metrics : hosts.computeIfAbsent(host, h -> new HostMetrics());
+    }
+
+    @Override
+    public void phase(final String host, final RequestPhase phase, final long nanos) {
+        metrics(host).phase(phase, nanos);
+    }
+
+    @Override
+    public void bytesRead(final String host, final long bytes) {
+        metrics(host).bytesRead(bytes);
+    }
+
+    @Override
+    public void bytesWritten(final String host, final long bytes) {
+        metrics(host).bytesWritten(bytes);
+    }
+
+    @Override
+    public void connectionAcquired(final String host, final boolean reused) {
+        metrics(host).connectionAcquired(reused);
+    }
+
+    @Override
+    public void parseError(final String host, final ProtocolParseException cause) {
+        metrics(host).parseError();
+    }
+
+    /**
+     * @return listener recording here first and then calling {@code listener}
+     */
+    MetricsListener andThen(final MetricsListener listener) {
+        if (listener == NOOP) {
+            return this;
+        }
+        return new MetricsListener() {
+            @Override
+            public void phase(final String host, final RequestPhase phase, final long nanos) {
+                ClientMetrics.this.phase(host, phase, nanos);
+                listener.phase(host, phase, nanos);
+            }
+
+            @Override
+            public void bytesRead(final String host, final long bytes) {
+                ClientMetrics.this.bytesRead(host, bytes);
+                listener.bytesRead(host, bytes);
+            }
+
+            @Override
+            public void bytesWritten(final String host, final long bytes) {
+                ClientMetrics.this.bytesWritten(host, bytes);
+                listener.bytesWritten(host, bytes);
+            }
+
+            @Override
+            public void connectionAcquired(final String host, final boolean reused) {
+                ClientMetrics.this.connectionAcquired(host, reused);
+                listener.connectionAcquired(host, reused);
+            }
+
+            @Override
+            public void parseError(final String host, final ProtocolParseException cause) {
+                ClientMetrics.this.parseError(host, cause);
+                listener.parseError(host, cause);
+            }
+        };
+    }
+}
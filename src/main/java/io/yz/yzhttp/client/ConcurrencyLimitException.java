@@ -0,0 +1,10 @@
+package io.yz.yzhttp.client;
+
+/**
+ * A request was not sent because its {@code host:port} is at its adaptive concurrency limit, see {@link LimitPolicy}.
+ */
+public class ConcurrencyLimitException extends RuntimeException {
+    public ConcurrencyLimitException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,189 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive concurrency limits by {@code host:port} in front of the connection pools, see
+ * {@link YzClientConfig#adaptiveConcurrency()} and {@link GradientLimit}.
+ * <p>
+ * A request holds its place from being handed to a pool until its exchange {@linkplain HttpExchange#onEnd ends}, which
+ * for {@link YzClient#sendStreaming} is once the body has been read, even when the caller cancelled its future before.
+ * A failure, or a 429 or 503 response, counts as a drop, and a cancelled request is not sampled at all. A
+ * {@code host:port} idle for {@link #IDLE_TIMEOUT_NANOS} is forgotten, limit included.
+ * <p>
+ * Like in {@link Http2ConnectionPool} the limit, the requests in flight and the waiting ones of a {@code host:port}
+ * live on one event loop, so none of it is shared between threads.
+ */
+final class ConcurrencyLimiter {
+    static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final EventLoopGroup group;
+    private final YzClientConfig config;
+    private final long idleTimeoutNanos;
+    private final ConcurrentMap<InetSocketAddress, Host> hosts;
+
+    ConcurrencyLimiter(final EventLoopGroup group, final YzClientConfig config) {
+        this(group, config, IDLE_TIMEOUT_NANOS);
+    }
+
+    ConcurrencyLimiter(final EventLoopGroup group, final YzClientConfig config, final long idleTimeoutNanos) {
+        this.group = group;
+        this.config = config;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.hosts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param dispatch hands {@code exchange} to a connection pool once it is within the limit
+     */
+    void send(final HttpExchange exchange, final Runnable dispatch) {
+        final HttpRequest request = exchange.request();
+        final InetSocketAddress key = InetSocketAddress.createUnresolved(request.host(), request.port());
+        final Host host = hosts.computeIfAbsent(key, k -> new Host(k, group.next()));
+
+        if (host.loop.inEventLoop()) {
+            host.send(exchange, dispatch);
+        } else {
+            host.loop.execute(() -> host.send(exchange, dispatch));
+        }
+    }
+
+    /**
+     * @return current limit of {@code host:port}, 0 when nothing was sent there
+     */
+    int limit(final String host, final int port) {
+        final Host h = hosts.get(InetSocketAddress.createUnresolved(host, port));
+        if (h == null) {
+            return 0;
+        }
+        return h.loop.inEventLoop() ? h.limit.limit() : h.loop.submit(h.limit::limit).syncUninterruptibly().getNow();
+    }
+
+    /**
+     * @return number of {@code host:port} tracked, for tests
+     */
+    int size() {
+        return hosts.size();
+    }
+
+    void close() {
+        for (final Host host : hosts.values()) {
+            host.loop.execute(host::close);
+        }
+    }
+
+    private static boolean overloaded(final int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    private final class Host {
+        private final InetSocketAddress key;
+        private final EventLoop loop;
+        private final GradientLimit limit;
+        private final Queue<Waiting> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private long idleSince;
+        private ScheduledFuture<?> eviction;
+        private boolean removed;
+
+        private Host(final InetSocketAddress key, final EventLoop loop) {
+            this.key = key;
+            this.loop = loop;
+            this.limit = new GradientLimit(config.initialConcurrencyLimit(), config.minConcurrencyLimit(),
+                    config.maxConcurrencyLimit());
+        }
+
+        private void send(final HttpExchange exchange, final Runnable dispatch) {
+            if (removed) {
+                // evicted after send looked it up, start over with the one now in hosts
+                ConcurrencyLimiter.this.send(exchange, dispatch);
+            } else if (inFlight < limit.limit()) {
+                start(exchange, dispatch);
+            } else if (config.limitPolicy() == LimitPolicy.QUEUE && waiting.size() < config.maxPendingRequestsPerHost()) {
+                waiting.add(new Waiting(exchange, dispatch));
+            } else {
+                exchange.fail(new ConcurrencyLimitException(
+                        key + " is at its concurrency limit of " + limit.limit()));
+            }
+        }
+
+        private void start(final HttpExchange exchange, final Runnable dispatch) {
+            final int sent = ++inFlight;
+            final long start = System.nanoTime();
+            exchange.onEnd((statusCode, cause) -> {
+                final long rttNanos = System.nanoTime() - start;
+                // the caller giving up says nothing about the server
+                final boolean sampled = !exchange.future().isCancelled();
+                final boolean dropped = cause != null || overloaded(statusCode);
+                if (loop.inEventLoop()) {
+                    complete(rttNanos, sent, sampled, dropped);
+                } else {
+                    loop.execute(() -> complete(rttNanos, sent, sampled, dropped));
+                }
+            });
+            dispatch.run();
+        }
+
+        private void complete(final long rttNanos, final int sent, final boolean sampled, final boolean dropped) {
+            inFlight--;
+            if (sampled) {
+                limit.sample(rttNanos, sent, dropped);
+            }
+            while (inFlight < limit.limit() && !waiting.isEmpty()) {
+                final Waiting next = waiting.poll();
+                // given up on while waiting
+                if (!next.exchange.future().isDone()) {
+                    start(next.exchange, next.dispatch);
+                }
+            }
+            if (inFlight == 0 && waiting.isEmpty()) {
+                idleSince = System.nanoTime();
+                if (eviction == null) {
+                    eviction = loop.schedule(this::evictIfIdle, idleTimeoutNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private void evictIfIdle() {
+            eviction = null;
+            if (inFlight > 0 || !waiting.isEmpty()) {
+                return;
+            }
+            final long idleNanos = System.nanoTime() - idleSince;
+            if (idleNanos >= idleTimeoutNanos) {
+                removed = true;
+                hosts.remove(key, this);
+            } else {
+                eviction = loop.schedule(this::evictIfIdle, idleTimeoutNanos - idleNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void close() {
+            if (eviction != null) {
+                eviction.cancel(false);
+            }
+            for (Waiting next = waiting.poll(); next != null; next = waiting.poll()) {
+                next.exchange.fail(new IllegalStateException("client is closed"));
+            }
+        }
+    }
+
+    private static final class Waiting {
+        private final HttpExchange exchange;
+        private final Runnable dispatch;
+
+        private Waiting(final HttpExchange exchange, final Runnable dispatch) {
+            this.exchange = exchange;
+            this.dispatch = dispatch;
+        }
+    }
+}
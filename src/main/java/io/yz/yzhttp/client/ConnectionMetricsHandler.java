@@ -0,0 +1,92 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+
+import java.net.SocketAddress;
+
+/**
+ * First handler of every connection, times its TCP connect and counts the bytes on the wire.
+ * <p>
+ * Byte counts are summed on the connection and reported once per read batch and once per flush.
+ */
+final class ConnectionMetricsHandler extends ChannelDuplexHandler {
+    private final String host;
+    private final MetricsListener listener;
+
+    private long bytesRead;
+    private long bytesWritten;
+
+    ConnectionMetricsHandler(final String host, final MetricsListener listener) {
+        this.host = host;
+        this.listener = listener;
+    }
+
+    @Override
+    public void connect(ChannelHandlerContext ctx, SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) throws Exception {
+        final long start = System.nanoTime();
+        ctx.connect(remoteAddress, localAddress, promise).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                listener.phase(host, RequestPhase.CONNECT, System.nanoTime() - start);
+            }
+        });
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            bytesRead += ((ByteBuf) msg).readableBytes();
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        reportRead();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            bytesWritten += ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            bytesWritten += ((ByteBufHolder) msg).content().readableBytes();
+        } else if (msg instanceof FileRegion) {
+            bytesWritten += ((FileRegion) msg).count();
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        reportWritten();
+        ctx.flush();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reportRead();
+        reportWritten();
+        ctx.fireChannelInactive();
+    }
+
+    private void reportRead() {
+        if (bytesRead > 0) {
+            listener.bytesRead(host, bytesRead);
+            bytesRead = 0;
+        }
+    }
+
+    private void reportWritten() {
+        if (bytesWritten > 0) {
+            listener.bytesWritten(host, bytesWritten);
+            bytesWritten = 0;
+        }
+    }
+}
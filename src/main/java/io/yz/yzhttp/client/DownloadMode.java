@@ -0,0 +1,20 @@
+package io.yz.yzhttp.client;
+
+/**
+ * How {@link YzClient#download} writes the message-body into the target file.
+ */
+public enum DownloadMode {
+    /**
+     * Append each received slice with positional {@code FileChannel} writes.
+     */
+    WRITE,
+    /**
+     * Like {@link #WRITE}, but size the file to the {@code Content-Length} before the first write.
+     */
+    PREALLOCATE,
+    /**
+     * Map the file for the {@code Content-Length} and copy each received slice into the mapping. Falls back to
+     * {@link #WRITE} when the length is unknown or does not fit one mapping.
+     */
+    MEMORY_MAPPED,
+}
@@ -0,0 +1,149 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes the message-body straight into a file as it arrives, for {@link YzClient#download}.
+ * <p>
+ * Slices are written from the received buffers themselves, a direct buffer goes to the {@link FileChannel} without
+ * being copied to the heap. The file is written on the connection's event loop, and closed there too, also when the
+ * exchange fails from another thread. A partially written file is left in place when the exchange fails.
+ * <p>
+ * A mapping is not forced to disk, which could block the event loop for long, its pages reach the file through the
+ * page cache. It is unmapped once garbage collected.
+ */
+final class FileExchange extends HttpExchange {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final Path target;
+    private final DownloadMode mode;
+    private final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+
+    private volatile EventExecutor loop;
+    private HttpResponseHead head;
+    private FileChannel file;
+    private MappedByteBuffer mapped;
+    private long position;
+
+    FileExchange(final HttpRequest request, final Path target, final DownloadMode mode) {
+        super(request);
+        this.target = target;
+        this.mode = mode;
+    }
+
+    @Override
+    CompletableFuture<HttpResponse> future() {
+        return future;
+    }
+
+    @Override
+    void head(final ChannelHandlerContext ctx, final HttpResponseHead head) {
+        this.loop = ctx.executor();
+        this.head = head;
+        final long length = head.contentLength();
+        try {
+            if (mode == DownloadMode.MEMORY_MAPPED && length > 0 && length <= Integer.MAX_VALUE) {
+                file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                mapped = file.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            } else {
+                file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+                if (mode == DownloadMode.PREALLOCATE && length > 0) {
+                    // grows the file to its final size, writes then only fill it in
+                    file.write(ByteBuffer.wrap(new byte[1]), length - 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    void content(final ByteBuf content) {
+        try {
+            if (file == null) {
+                // failed and closed before the body ended
+                return;
+            }
+            if (mapped != null) {
+                mapped.limit(mapped.position() + content.readableBytes());
+                content.getBytes(content.readerIndex(), mapped);
+                return;
+            }
+
+            int index = content.readerIndex();
+            int remaining = content.readableBytes();
+            while (remaining > 0) {
+                final int written = content.getBytes(index, file, position, remaining);
+                index += written;
+                remaining -= written;
+                position += written;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            content.release();
+        }
+    }
+
+    @Override
+    void complete() {
+        if (head == null) {
+            fail(new ProtocolParseException());
+            return;
+        }
+
+        try {
+            close();
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            ended(0, e);
+            return;
+        }
+        future.complete(new HttpResponse(
+                head.httpVersion(),
+                head.statusCode(),
+                head.reasonPhrase(),
+                head.httpHeader(),
+                EMPTY
+        ));
+        ended(head.statusCode(), null);
+    }
+
+    @Override
+    void fail(final Throwable cause) {
+        final EventExecutor loop = this.loop;
+        if (loop != null && !loop.inEventLoop()) {
+            loop.execute(() -> fail(cause));
+            return;
+        }
+        try {
+            close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+        future.completeExceptionally(cause);
+        ended(0, cause);
+    }
+
+    private void close() throws IOException {
+        mapped = null;
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+}
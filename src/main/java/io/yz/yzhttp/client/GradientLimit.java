@@ -0,0 +1,65 @@
+package io.yz.yzhttp.client;
+
+/**
+ * Concurrency limit of one {@code host:port} following the gradient between its long and short term latency.
+ * <p>
+ * While the recent latency stays within {@value #TOLERANCE} times the long term average the limit grows by about
+ * the square root of itself, beyond that it shrinks in proportion, and a failed or overloaded response cuts it by
+ * {@code 1 - }{@value #BACKOFF}. It only grows while at least half of it is in use, so an idle host keeps its limit.
+ * <p>
+ * Not thread-safe, owned by the event loop of its {@code host:port}.
+ */
+final class GradientLimit {
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final int min;
+    private final int max;
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(final int initial, final int min, final int max) {
+        this.min = min;
+        this.max = max;
+        this.limit = initial;
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @param rttNanos from sending the request to its response
+     * @param inFlight requests in flight when it was sent, itself included
+     * @param dropped  whether it failed or the server answered it was overloaded
+     */
+    void sample(final long rttNanos, final int inFlight, final boolean dropped) {
+        if (dropped) {
+            limit = Math.max(min, limit * BACKOFF);
+            return;
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+            longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        }
+        // once latency has recovered, bring the long term average down faster than its window would
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        final double target = limit * gradient + Math.sqrt(limit);
+        final double next = Math.max(min, Math.min(max, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        if (next < limit || inFlight >= limit / 2) {
+            limit = next;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.yz.yzhttp.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of the requests to one host, see {@link ClientMetrics}.
+ */
+public final class HostMetrics {
+    private final Map<RequestPhase, LatencyHistogram> phases = new EnumMap<>(RequestPhase.class);
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+
+    HostMetrics() {
+        for (RequestPhase phase : RequestPhase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram histogram(final RequestPhase phase) {
+        return phases.get(phase);
+    }
+
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * @return requests that got a connection or an HTTP/2 stream
+     */
+    public long connectionsAcquired() {
+        return connectionsAcquired.sum();
+    }
+
+    /**
+     * @return requests that got a connection which carried a request before
+     */
+    public long connectionsReused() {
+        return connectionsReused.sum();
+    }
+
+    /**
+     * @return share of requests sent on a reused connection, 0 when there was none
+     */
+    public double reuseRatio() {
+        final long acquired = connectionsAcquired();
+        return acquired == 0 ? 0 : (double) connectionsReused() / acquired;
+    }
+
+    /**
+     * @return responses that failed with a {@link ProtocolParseException}
+     */
+    public long parseErrors() {
+        return parseErrors.sum();
+    }
+
+    void phase(final RequestPhase phase, final long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    void bytesRead(final long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    void bytesWritten(final long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    void connectionAcquired(final boolean reused) {
+        connectionsAcquired.increment();
+        if (reused) {
+            connectionsReused.increment();
+        }
+    }
+
+    void parseError() {
+        parseErrors.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "HostMetrics{" +
+                "phases=" + phases +
+                ", bytesRead=" + bytesRead +
+                ", bytesWritten=" + bytesWritten +
+                ", reuseRatio=" + reuseRatio() +
+                ", parseErrors=" + parseErrors +
+                '}';
+    }
+}
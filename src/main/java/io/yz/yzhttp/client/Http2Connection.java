@@ -0,0 +1,268 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpClientUpgradeHandler;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2ClientUpgradeCodec;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+
+import java.net.ProtocolException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Last handler of an HTTP/2 connection's pipeline, opens a stream per {@link HttpExchange} and counts the open ones.
+ * <p>
+ * The connection takes streams once the server's first SETTINGS frame has been read, which is also where its
+ * SETTINGS_MAX_CONCURRENT_STREAMS comes from. After a GOAWAY it takes no more streams and the ones already open run
+ * to their end. Everything happens on the connection's event loop.
+ * <p>
+ * Over TLS the HTTP/2 codec is only added once ALPN settled on {@code h2}. A server choosing {@code http/1.1} gets the
+ * connection closed and the owner told so, without a stream ever being opened.
+ */
+final class Http2Connection extends ChannelInboundHandlerAdapter {
+    private static final int UPGRADE_MAX_CONTENT = 64 * 1024;
+
+    /**
+     * Callbacks of the {@link Http2ConnectionPool} owning the connection, on the connection's event loop.
+     */
+    interface Listener {
+        void ready(Http2Connection connection);
+
+        /**
+         * A stream closed or the server raised its limit.
+         */
+        void available(Http2Connection connection);
+
+        /**
+         * The connection takes no more streams, called once.
+         *
+         * @param cause why the connection failed before it was ready, {@code null} if it was ready
+         */
+        void retired(Http2Connection connection, Throwable cause);
+
+        /**
+         * The server only speaks HTTP/1.1 over TLS, the connection is closed and was never ready.
+         */
+        void http11(Http2Connection connection);
+    }
+
+    private final Listener listener;
+    private final String host;
+    private final int port;
+    private final String authority;
+    private final YzClientConfig config;
+    private final TlsContext tls;
+    private final MetricsListener metrics;
+
+    private Http2StreamChannelBootstrap streams;
+    private long maxStreams;
+    private int openStreams;
+    private boolean ready;
+    private boolean used;
+    private boolean retired;
+    private Throwable failure;
+
+    /**
+     * @param tls {@code null} for a cleartext connection
+     */
+    Http2Connection(final Listener listener, final String host, final int port, final YzClientConfig config,
+                    final TlsContext tls, final MetricsListener metrics) {
+        this.listener = listener;
+        this.host = host;
+        this.port = port;
+        this.authority = host + ':' + port;
+        this.config = config;
+        this.tls = tls;
+        this.metrics = metrics;
+        this.maxStreams = config.http2MaxConcurrentStreams();
+    }
+
+    /**
+     * Adds the HTTP/2 codec, the HTTP/1.1 codec upgrading to it or TLS negotiating it, and this handler to
+     * {@code channel}.
+     */
+    void init(final Channel channel) {
+        final Http2FrameCodec frameCodec = Http2FrameCodecBuilder.forClient()
+                .initialSettings(new Http2Settings()
+                        .pushEnabled(false)
+                        .initialWindowSize(config.http2StreamWindowSize()))
+                .build();
+        final Http2MultiplexHandler multiplexHandler = new Http2MultiplexHandler(Discard.INSTANCE, Discard.INSTANCE);
+        channel.pipeline().addLast(new ConnectionMetricsHandler(host, metrics));
+
+        if (tls != null) {
+            channel.pipeline().addLast(
+                    tls.newHandler(channel.alloc(), host, port, true),
+                    new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                        @Override
+                        protected void configurePipeline(final ChannelHandlerContext ctx, final String protocol) {
+                            if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                final String name = ctx.pipeline().context(Http2Connection.this).name();
+                                ctx.pipeline().addBefore(name, null, frameCodec).addBefore(name, null, multiplexHandler);
+                            } else {
+                                retired = true;
+                                listener.http11(Http2Connection.this);
+                                ctx.close();
+                            }
+                        }
+
+                        @Override
+                        protected void handshakeFailure(final ChannelHandlerContext ctx, final Throwable cause) {
+                            failure = cause;
+                            ctx.close();
+                        }
+                    },
+                    this
+            );
+        } else if (config.h2cUpgrade()) {
+            final HttpClientCodec http1 = new HttpClientCodec();
+            channel.pipeline().addLast(
+                    http1,
+                    new HttpClientUpgradeHandler(http1, new Http2ClientUpgradeCodec((Http2ConnectionHandler) frameCodec, multiplexHandler), UPGRADE_MAX_CONTENT),
+                    this
+            );
+        } else {
+            channel.pipeline().addLast(frameCodec, multiplexHandler, this);
+        }
+    }
+
+    /**
+     * @return false if the connection is not ready, going away or has no free stream
+     */
+    boolean tryOpenStream(final HttpExchange exchange) {
+        if (!ready || retired || openStreams >= maxStreams) {
+            return false;
+        }
+
+        openStreams++;
+        metrics.connectionAcquired(host, used);
+        used = true;
+        streams.open().addListener((GenericFutureListener<Future<Http2StreamChannel>>) future -> {
+            if (!future.isSuccess()) {
+                streamClosed();
+                exchange.fail(future.cause());
+                return;
+            }
+            final Http2StreamChannel stream = future.getNow();
+            stream.closeFuture().addListener(f -> streamClosed());
+            stream.pipeline().addLast(new ChunkedWriteHandler(), new Http2StreamHandler(exchange, host, metrics));
+        });
+        return true;
+    }
+
+    void connectFailed(final Throwable cause) {
+        retire(cause);
+    }
+
+    private void streamClosed() {
+        openStreams--;
+        listener.available(this);
+    }
+
+    private void retire(final Throwable cause) {
+        if (!retired) {
+            retired = true;
+            listener.retired(this, ready ? null : cause);
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        streams = new Http2StreamChannelBootstrap(ctx.channel());
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (tls == null && config.h2cUpgrade()) {
+            final DefaultFullHttpRequest upgrade = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.OPTIONS, "*");
+            upgrade.headers().set(HttpHeaderNames.HOST, authority);
+            ctx.writeAndFlush(upgrade);
+        }
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        try {
+            if (msg instanceof Http2SettingsFrame) {
+                final Long serverMax = ((Http2SettingsFrame) msg).settings().maxConcurrentStreams();
+                if (serverMax != null) {
+                    maxStreams = Math.min(config.http2MaxConcurrentStreams(), serverMax);
+                }
+                if (!ready) {
+                    ready = true;
+                    final int windowIncrement = config.http2ConnectionWindowSize() - Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+                    if (windowIncrement > 0) {
+                        ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(windowIncrement));
+                    }
+                    listener.ready(this);
+                } else {
+                    listener.available(this);
+                }
+            } else if (msg instanceof Http2GoAwayFrame) {
+                retire(new ClosedChannelException());
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt == HttpClientUpgradeHandler.UpgradeEvent.UPGRADE_REJECTED) {
+            failure = new ProtocolException(authority + " rejected the h2c upgrade");
+            ctx.close();
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        retire(failure != null ? failure : new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (failure == null) {
+            failure = cause;
+        }
+        ctx.close();
+    }
+
+    /**
+     * Handler of streams the client did not open, which is only the response to the h2c upgrade request.
+     */
+    @Sharable
+    private static final class Discard extends ChannelInboundHandlerAdapter {
+        private static final Discard INSTANCE = new Discard();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
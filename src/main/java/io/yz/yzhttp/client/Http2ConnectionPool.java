@@ -0,0 +1,195 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * HTTP/2 connections grouped by {@code host:port}, each carrying many requests as concurrent streams.
+ * <p>
+ * A request becomes a stream on the first connection of its {@code host:port} with a free one, a connection holds
+ * up to {@code http2MaxConcurrentStreams} or the server's SETTINGS_MAX_CONCURRENT_STREAMS if lower. Only when every
+ * connection is full is another one opened, up to {@code maxConnectionsPerHost}, and up to
+ * {@code maxPendingRequestsPerHost} requests wait for a free stream meanwhile.
+ * <p>
+ * All connections of one {@code host:port} live on the same event loop together with their bookkeeping, so none of
+ * it is shared between threads.
+ * <p>
+ * With a {@link TlsContext} connections negotiate {@code h2} by ALPN. Once a server picks {@code http/1.1} instead,
+ * every request to it, waiting or new, is downgraded and handed to the HTTP/1.1 fallback.
+ */
+final class Http2ConnectionPool implements Closeable {
+    private final Bootstrap bootstrap;
+    private final EventLoopGroup group;
+    private final YzClientConfig config;
+    private final TlsContext tls;
+    private final Consumer<HttpExchange> http11;
+    private final MetricsListener listener;
+    private final ConcurrentMap<InetSocketAddress, Host> hosts;
+
+    /**
+     * @param tls    {@code null} for cleartext connections
+     * @param http11 sends a request over TLS to a server without HTTP/2, unused without {@code tls}
+     */
+    Http2ConnectionPool(final Bootstrap bootstrap, final YzClientConfig config, final TlsContext tls,
+                        final Consumer<HttpExchange> http11, final MetricsListener listener) {
+        this.bootstrap = bootstrap;
+        this.group = bootstrap.config().group();
+        this.config = config;
+        this.tls = tls;
+        this.http11 = http11;
+        this.listener = listener;
+        this.hosts = new ConcurrentHashMap<>();
+    }
+
+    void send(final HttpExchange exchange) {
+        final HttpRequest request = exchange.request();
+        final InetSocketAddress key = InetSocketAddress.createUnresolved(request.host(), request.port());
+        final Host host = hosts.computeIfAbsent(key, k -> new Host(k, group.next()));
+
+        if (host.loop.inEventLoop()) {
+            host.send(exchange);
+        } else {
+            host.loop.execute(() -> host.send(exchange));
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final Host host : hosts.values()) {
+            host.loop.execute(host::close);
+        }
+    }
+
+    private final class Host implements Http2Connection.Listener {
+        private final InetSocketAddress key;
+        private final EventLoop loop;
+        private final List<Http2Connection> connections = new ArrayList<>();
+        private final List<Channel> channels = new ArrayList<>();
+        private final Queue<HttpExchange> pending = new ArrayDeque<>();
+        private int connecting;
+        private boolean http11Only;
+
+        private Host(final InetSocketAddress key, final EventLoop loop) {
+            this.key = key;
+            this.loop = loop;
+        }
+
+        private void send(final HttpExchange exchange) {
+            if (http11Only) {
+                exchange.downgrade();
+                http11.accept(exchange);
+                return;
+            }
+            if (tryOpenStream(exchange)) {
+                return;
+            }
+            if (pending.size() >= config.maxPendingRequestsPerHost()) {
+                exchange.fail(new IllegalStateException("Too many outstanding requests to " + key));
+                return;
+            }
+            pending.add(exchange);
+            connectIfFull();
+        }
+
+        private boolean tryOpenStream(final HttpExchange exchange) {
+            for (final Http2Connection connection : connections) {
+                if (connection.tryOpenStream(exchange)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void connectIfFull() {
+            // each connection still being set up is expected to take a full share of the pending requests
+            if (connections.size() + connecting < config.maxConnectionsPerHost()
+                    && pending.size() > (long) connecting * config.http2MaxConcurrentStreams()) {
+                connect();
+            }
+        }
+
+        private void connect() {
+            connecting++;
+            final Http2Connection connection = new Http2Connection(this, key.getHostString(), key.getPort(), config, tls, listener);
+            final Channel channel = bootstrap.clone(loop)
+                    .remoteAddress(key)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(final Channel ch) {
+                            connection.init(ch);
+                        }
+                    })
+                    .connect()
+                    .addListener((ChannelFutureListener) future -> {
+                        if (!future.isSuccess()) {
+                            connection.connectFailed(future.cause());
+                        }
+                    })
+                    .channel();
+            channels.add(channel);
+            channel.closeFuture().addListener(future -> channels.remove(channel));
+        }
+
+        @Override
+        public void ready(final Http2Connection connection) {
+            connecting--;
+            connections.add(connection);
+            available(connection);
+        }
+
+        @Override
+        public void available(final Http2Connection connection) {
+            for (HttpExchange exchange; (exchange = pending.peek()) != null && connection.tryOpenStream(exchange); ) {
+                pending.poll();
+            }
+            if (!pending.isEmpty()) {
+                connectIfFull();
+            }
+        }
+
+        @Override
+        public void retired(final Http2Connection connection, final Throwable cause) {
+            if (cause == null) {
+                connections.remove(connection);
+                connectIfFull();
+                return;
+            }
+
+            connecting--;
+            if (connections.isEmpty() && connecting == 0) {
+                for (HttpExchange exchange; (exchange = pending.poll()) != null; ) {
+                    exchange.fail(cause);
+                }
+            }
+        }
+
+        @Override
+        public void http11(final Http2Connection connection) {
+            connecting--;
+            http11Only = true;
+            for (HttpExchange exchange; (exchange = pending.poll()) != null; ) {
+                send(exchange);
+            }
+        }
+
+        private void close() {
+            for (final Channel channel : new ArrayList<>(channels)) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpScheme;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2ResetFrame;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Handler of one HTTP/2 stream, writes the request of its {@link HttpExchange} and feeds the response frames to it.
+ * <p>
+ * Does for a stream what {@link HttpRequestEncoder} and {@link PooledConnectionHandler} do for an HTTP/1.1
+ * connection. The {@code Host} field becomes {@code :authority} and connection-specific fields are left out. A
+ * response head has no reason-phrase and trailer fields are dropped.
+ */
+final class Http2StreamHandler extends ChannelInboundHandlerAdapter {
+    private static final Set<HttpHeaderName> CONNECTION_SPECIFIC = new HashSet<>(Arrays.asList(
+            HttpHeaderName.CONNECTION,
+            HttpHeaderName.KEEP_ALIVE,
+            HttpHeaderName.TRANSFER_ENCODING,
+            HttpHeaderName.of("Proxy-Connection"),
+            HttpHeaderName.of("Upgrade")
+    ));
+
+    private final HttpExchange exchange;
+    private final String host;
+    private final MetricsListener listener;
+
+    private boolean firstFrameRead;
+    private boolean headRead;
+    private long headNanos;
+    private boolean done;
+
+    Http2StreamHandler(final HttpExchange exchange, final String host, final MetricsListener listener) {
+        this.exchange = exchange;
+        this.host = host;
+        this.listener = listener;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        final HttpRequest request = exchange.request();
+        final RequestBody body = request.body();
+        final boolean endStream = body == null || body.contentLength() == 0;
+        final long start = System.nanoTime();
+        final ChannelFutureListener failOnError = future -> {
+            if (!future.isSuccess()) {
+                fail(future.cause());
+                future.channel().close();
+            }
+        };
+        final ChannelFutureListener written = future -> {
+            if (future.isSuccess()) {
+                final long now = System.nanoTime();
+                exchange.written(now);
+                listener.phase(host, RequestPhase.WRITE, now - start);
+            }
+        };
+
+        final ChannelFuture headersWritten = ctx.write(new DefaultHttp2HeadersFrame(headers(request), endStream)).addListener(failOnError);
+        if (endStream) {
+            headersWritten.addListener(written);
+        } else {
+            final Object content;
+            try {
+                content = body.content(false);
+            } catch (IOException e) {
+                fail(e);
+                ctx.close();
+                return;
+            }
+            if (content instanceof ByteBuf) {
+                ctx.write(new DefaultHttp2DataFrame((ByteBuf) content, true)).addListener(failOnError).addListener(written);
+            } else {
+                @SuppressWarnings("unchecked") final ChunkedInput<ByteBuf> input = (ChunkedInput<ByteBuf>) content;
+                ctx.write(new DataFrames(input)).addListener(failOnError).addListener(written);
+            }
+        }
+        ctx.flush();
+    }
+
+    private Http2Headers headers(final HttpRequest request) {
+        final Http2Headers headers = new DefaultHttp2Headers()
+                .method(request.method().name())
+                .path(request.path())
+                .scheme((request.secure() ? HttpScheme.HTTPS : HttpScheme.HTTP).name());
+
+        final HttpHeaderName[] names = request.headerNames();
+        final String[] values = request.headerValues();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(HttpHeaderName.HOST)) {
+                headers.authority(values[i]);
+            } else if (!CONNECTION_SPECIFIC.contains(names[i])) {
+                headers.add(names[i].name().toLowerCase(Locale.ROOT), values[i]);
+            }
+        }
+        if (headers.authority() == null) {
+            headers.authority(request.host() + ':' + request.port());
+        }
+        return headers;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Http2DataFrame) {
+            final Http2DataFrame frame = (Http2DataFrame) msg;
+            final boolean endStream = frame.isEndStream();
+            if (headRead && !done && frame.content().isReadable()) {
+                exchange.content(frame.content());
+            } else {
+                frame.release();
+            }
+            if (endStream) {
+                complete();
+            }
+        } else if (msg instanceof Http2HeadersFrame) {
+            final Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+            if (!firstFrameRead) {
+                firstFrameRead = true;
+                if (exchange.writtenNanos() != 0) {
+                    listener.phase(host, RequestPhase.TIME_TO_FIRST_BYTE, System.nanoTime() - exchange.writtenNanos());
+                }
+            }
+            if (!headRead) {
+                final int statusCode;
+                try {
+                    statusCode = Integer.parseInt(String.valueOf(frame.headers().status()));
+                } catch (NumberFormatException e) {
+                    parseError(new ProtocolParseException(e));
+                    ctx.close();
+                    return;
+                }
+                if (statusCode < 200) {
+                    // informational, the final head follows
+                    return;
+                }
+                headRead = true;
+                headNanos = System.nanoTime();
+                exchange.head(ctx, head(statusCode, frame.headers()));
+            }
+            if (frame.isEndStream()) {
+                complete();
+            }
+        } else if (msg instanceof Http2ResetFrame) {
+            final Http2ResetFrame frame = (Http2ResetFrame) msg;
+            fail(Http2Exception.streamError(frame.stream().id(), Http2Error.valueOf(frame.errorCode()), "stream reset by server"));
+        } else {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private static HttpResponseHead head(final int statusCode, final Http2Headers headers) {
+        final HttpHeader.Builder builder = HttpHeader.builder();
+        for (Map.Entry<CharSequence, CharSequence> field : headers) {
+            final CharSequence name = field.getKey();
+            if (name.length() > 0 && name.charAt(0) != ':') {
+                builder.addField(name.toString(), field.getValue().toString());
+            }
+        }
+        return new HttpResponseHead(
+                HttpVersion.HTTP_2_0,
+                statusCode,
+                "",
+                builder.build(),
+                headers.getLong(HttpHeaderNames.CONTENT_LENGTH, -1)
+        );
+    }
+
+    private void complete() {
+        if (!done) {
+            done = true;
+            if (headRead) {
+                listener.phase(host, RequestPhase.BODY, System.nanoTime() - headNanos);
+                exchange.complete();
+            } else {
+                final ProtocolParseException cause = new ProtocolParseException();
+                listener.parseError(host, cause);
+                exchange.fail(cause);
+            }
+        }
+    }
+
+    private void parseError(final ProtocolParseException cause) {
+        if (!done) {
+            listener.parseError(host, cause);
+        }
+        fail(cause);
+    }
+
+    private void fail(final Throwable cause) {
+        if (!done) {
+            done = true;
+            exchange.fail(cause);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        fail(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        fail(cause);
+        ctx.close();
+    }
+
+    /**
+     * A chunked message-body as DATA frames, the last one ending the stream.
+     */
+    private static final class DataFrames implements ChunkedInput<Http2DataFrame> {
+        private final ChunkedInput<ByteBuf> input;
+
+        private DataFrames(final ChunkedInput<ByteBuf> input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean isEndOfInput() throws Exception {
+            return input.isEndOfInput();
+        }
+
+        @Override
+        public void close() throws Exception {
+            input.close();
+        }
+
+        @Deprecated
+        @Override
+        public Http2DataFrame readChunk(final ChannelHandlerContext ctx) throws Exception {
+            return readChunk(ctx.alloc());
+        }
+
+        @Override
+        public Http2DataFrame readChunk(final ByteBufAllocator allocator) throws Exception {
+            final ByteBuf chunk = input.readChunk(allocator);
+            return chunk == null ? null : new DefaultHttp2DataFrame(chunk, input.isEndOfInput());
+        }
+
+        @Override
+        public long length() {
+            return input.length();
+        }
+
+        @Override
+        public long progress() {
+            return input.progress();
+        }
+    }
+}
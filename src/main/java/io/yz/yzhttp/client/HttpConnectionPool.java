@@ -0,0 +1,153 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.Promise;
+import io.yz.yzhttp.client.low.HttpContentDecompressor;
+import io.yz.yzhttp.client.low.HttpObjectHandler;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Keep-alive connections grouped by {@code host:port}.
+ * <p>
+ * Every {@code host:port} owns a {@link FixedChannelPool} which opens at most {@code maxConnectionsPerHost}
+ * connections and queues up to {@code maxPendingRequestsPerHost} requests waiting for one of them.
+ * A connection goes back to its pool once {@link HttpObjectHandler} has read the end of the last response on it.
+ * <p>
+ * With a {@code maxPipelineDepth} above 1, idempotent requests are first written behind the requests already in
+ * flight on a busy connection of the same {@code host:port}, and a new connection is only acquired when every such
+ * connection is at its depth limit. A non-idempotent request always gets a connection of its own and nothing is
+ * pipelined behind it. Pipelined requests left unanswered when their connection closes are handed to {@code retry}.
+ * <p>
+ * With a {@link TlsContext} every connection starts with a TLS handshake, offering only {@code http/1.1} by ALPN.
+ */
+final class HttpConnectionPool implements Closeable {
+    private final EventExecutorGroup executor;
+    private final int maxPipelineDepth;
+    private final boolean decompression;
+    private final TlsContext tls;
+    private final Consumer<HttpExchange> retry;
+    private final MetricsListener listener;
+    private final AbstractChannelPoolMap<InetSocketAddress, FixedChannelPool> pools;
+    private final ConcurrentMap<InetSocketAddress, Queue<PooledConnectionHandler>> pipelines;
+
+    /**
+     * @param tls   {@code null} for plain connections
+     * @param retry sends an unanswered pipelined request again, see {@link PooledConnectionHandler}
+     */
+    HttpConnectionPool(final Bootstrap bootstrap, final YzClientConfig config, final TlsContext tls,
+                       final Consumer<HttpExchange> retry, final MetricsListener listener) {
+        this.executor = bootstrap.config().group();
+        this.maxPipelineDepth = config.maxPipelineDepth();
+        this.decompression = config.decompression();
+        this.tls = tls;
+        this.retry = retry;
+        this.listener = listener;
+        this.pools = new AbstractChannelPoolMap<InetSocketAddress, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(final InetSocketAddress key) {
+                return new FixedChannelPool(
+                        bootstrap.clone().remoteAddress(key),
+                        new PoolHandler(key),
+                        ChannelHealthChecker.ACTIVE,
+                        null,
+                        -1,
+                        config.maxConnectionsPerHost(),
+                        config.maxPendingRequestsPerHost(),
+                        true,
+                        true
+                );
+            }
+        };
+        this.pipelines = new ConcurrentHashMap<>();
+    }
+
+    Future<Channel> acquire(final String host, final int port, final boolean pipelined) {
+        final InetSocketAddress key = InetSocketAddress.createUnresolved(host, port);
+
+        if (!pipelined || maxPipelineDepth <= 1) {
+            return pools.get(key).acquire();
+        }
+
+        final Queue<PooledConnectionHandler> busy = pipelines.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+        for (final PooledConnectionHandler connection : busy) {
+            if (connection.tryReserve()) {
+                listener.connectionAcquired(host, true);
+                return connection.channel().eventLoop().newSucceededFuture(connection.channel());
+            }
+        }
+
+        final Promise<Channel> promise = executor.next().newPromise();
+        pools.get(key).acquire().addListener((GenericFutureListener<Future<Channel>>) future -> {
+            if (future.isSuccess()) {
+                final Channel channel = future.getNow();
+                busy.add(channel.pipeline().get(PooledConnectionHandler.class));
+                promise.setSuccess(channel);
+            } else {
+                promise.setFailure(future.cause());
+            }
+        });
+        return promise;
+    }
+
+    private void release(final InetSocketAddress key, final Channel channel) {
+        final Queue<PooledConnectionHandler> busy = pipelines.get(key);
+        if (busy != null) {
+            busy.remove(channel.pipeline().get(PooledConnectionHandler.class));
+        }
+        pools.get(key).release(channel);
+    }
+
+    @Override
+    public void close() {
+        pools.close();
+    }
+
+    private final class PoolHandler extends AbstractChannelPoolHandler {
+        private final InetSocketAddress key;
+
+        private PoolHandler(final InetSocketAddress key) {
+            this.key = key;
+        }
+
+        @Override
+        public void channelCreated(final Channel channel) {
+            channel.pipeline().addLast(new ConnectionMetricsHandler(key.getHostString(), listener));
+            if (tls != null) {
+                // only a TLS connection gets a request body as ChunkedInput, see HttpRequestEncoder
+                channel.pipeline().addLast(
+                        tls.newHandler(channel.alloc(), key.getHostString(), key.getPort(), false),
+                        new ChunkedWriteHandler()
+                );
+            }
+            channel.pipeline().addLast(
+                    decompression ? HttpRequestEncoder.ACCEPT_COMPRESSED : HttpRequestEncoder.INSTANCE,
+                    new HttpObjectHandler()
+            );
+            if (decompression) {
+                channel.pipeline().addLast(new HttpContentDecompressor());
+            }
+            channel.pipeline().addLast(new PooledConnectionHandler(c -> release(key, c), retry, maxPipelineDepth, key.getHostString(), listener));
+        }
+
+        @Override
+        public void channelAcquired(final Channel channel) {
+            listener.connectionAcquired(key.getHostString(), channel.pipeline().get(PooledConnectionHandler.class).acquired());
+        }
+    }
+}
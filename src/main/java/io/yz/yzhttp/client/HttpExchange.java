@@ -0,0 +1,104 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * One request written by {@link YzClient} and the consumer of the response read for it.
+ * <p>
+ * {@link PooledConnectionHandler} calls {@link #head}, {@link #content} and {@link #complete} on the connection's
+ * event loop; {@link #fail} may be called from any thread and more than once.
+ */
+abstract class HttpExchange {
+    private static final AtomicReferenceFieldUpdater<HttpExchange, EndListener> END_LISTENER =
+            AtomicReferenceFieldUpdater.newUpdater(HttpExchange.class, EndListener.class, "endListener");
+
+    private HttpRequest request;
+    private long writtenNanos;
+    private volatile EndListener endListener;
+    private boolean retried;
+
+    HttpExchange(final HttpRequest request) {
+        this.request = request;
+    }
+
+    HttpRequest request() {
+        return request;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the request was completely written, 0 until then
+     */
+    long writtenNanos() {
+        return writtenNanos;
+    }
+
+    void written(final long nanos) {
+        writtenNanos = nanos;
+    }
+
+    /**
+     * Sends the request as HTTP/1.1 instead, called before it is handed to an HTTP/1.1 connection.
+     */
+    void downgrade() {
+        request = request.withVersion(HttpVersion.HTTP_1_1);
+    }
+
+    /**
+     * @return future handed to the caller, completed once the response is available to it or the exchange failed
+     */
+    abstract CompletableFuture<?> future();
+
+    /**
+     * @return {@code true} the first time only and for an idempotent request, which may then be sent again on another
+     * connection
+     */
+    boolean retry() {
+        if (retried || !request.method().isIdempotent()) {
+            return false;
+        }
+        retried = true;
+        return true;
+    }
+
+    /**
+     * Sets the listener told when the exchange ends, before it is handed to a connection.
+     */
+    void onEnd(final EndListener listener) {
+        endListener = listener;
+    }
+
+    /**
+     * Tells the {@link #onEnd} listener, once, that the exchange ended. Called by {@link #complete} and
+     * {@link #fail}, so it is independent of what the caller did with the {@link #future()}.
+     *
+     * @param statusCode of the response, 0 when there was none
+     * @param cause      {@code null} when the response was read completely
+     */
+    final void ended(final int statusCode, final Throwable cause) {
+        final EndListener listener = END_LISTENER.getAndSet(this, null);
+        if (listener != null) {
+            listener.ended(statusCode, cause);
+        }
+    }
+
+    abstract void head(ChannelHandlerContext ctx, HttpResponseHead head);
+
+    /**
+     * @param content a slice of the message-body, ownership passes to the exchange
+     */
+    abstract void content(ByteBuf content);
+
+    abstract void complete();
+
+    abstract void fail(Throwable cause);
+
+    interface EndListener {
+        void ended(int statusCode, Throwable cause);
+    }
+}
@@ -1,44 +1,280 @@
 package io.yz.yzhttp.client;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Header fields of a message.
+ * <p>
+ * A header built by {@link Builder} holds decoded strings. A header read off the wire by the parser holds the raw
+ * field bytes plus an offset/length index per field, see {@link #ofRaw}; names and values are only decoded to
+ * {@code String} when {@link #getHeader}, {@link #getCookies} or iteration asks for them.
+ * <p>
+ * Either way the fields are indexed by an open-addressing table keyed by the case-insensitive name hash, so lookups
+ * do not scan the field list. Pass a {@link HttpHeaderName} constant to also skip hashing the name.
+ * <p>
+ * Fields repeating a name replace the earlier ones, except {@code Set-Cookie} which keeps every value.
+ */
 public class HttpHeader implements Iterable<HttpHeaderField> {
-    private final List<HttpHeaderField> list;
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 1;
+    private static final int VALUE_OFFSET = 2;
+    private static final int VALUE_LENGTH = 3;
+    private static final int FIELD_STRIDE = 4;
 
-    private HttpHeader(final List<HttpHeaderField> list) {
-        this.list = Collections.unmodifiableList(list);
+    private final byte[] raw;
+    private final int[] index;
+    private final int size;
+
+    private final String[] names;
+    private final String[] values;
+
+    /**
+     * Name hash per field.
+     */
+    private final int[] hashes;
+    /**
+     * Per field, the earlier field with the same name, -1 if none.
+     */
+    private final int[] previous;
+    /**
+     * Per field, whether a later field with the same name replaces it.
+     */
+    private final boolean[] replaced;
+    /**
+     * Open-addressing table, 1 + the last field for each distinct name, 0 for an empty slot.
+     */
+    private final int[] slots;
+
+    private HttpHeader(final String[] names, final String[] values, final int size) {
+        this.raw = null;
+        this.index = null;
+        this.size = size;
+        this.names = names;
+        this.values = values;
+        this.hashes = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            hashes[i] = HttpHeaderName.hash(names[i]);
+        }
+
+        this.previous = new int[size];
+        this.replaced = new boolean[size];
+        this.slots = new int[tableSize(size)];
+        buildIndex();
+    }
+
+    private HttpHeader(final byte[] raw, final int[] index, final int size) {
+        this.raw = raw;
+        this.index = index;
+        this.size = size;
+        this.names = new String[size];
+        this.values = new String[size];
+        this.hashes = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            final int base = i * FIELD_STRIDE;
+            hashes[i] = HttpHeaderName.hash(raw, index[base + NAME_OFFSET], index[base + NAME_LENGTH]);
+        }
+
+        this.previous = new int[size];
+        this.replaced = new boolean[size];
+        this.slots = new int[tableSize(size)];
+        buildIndex();
+    }
+
+    /**
+     * Wraps raw header field bytes without decoding them. Both arrays are taken over, not copied.
+     *
+     * @param raw   field-name and field-value bytes
+     * @param index per field: name offset, name length, value offset, value length into {@code raw}
+     * @param size  number of fields, in the order they were received
+     * @return header
+     */
+    public static HttpHeader ofRaw(final byte[] raw, final int[] index, final int size) {
+        Objects.requireNonNull(raw, "raw can not be null");
+        Objects.requireNonNull(index, "index can not be null");
+        if (size < 0 || index.length < size * FIELD_STRIDE) {
+            throw new IllegalArgumentException("index is too short for " + size + " fields");
+        }
+        return new HttpHeader(raw, index, size);
     }
 
     public Optional<String> getHeader(final String fieldName) {
         checkFieldName(fieldName);
 
-        return list.stream()
-                .filter(e -> fieldName.equalsIgnoreCase(e.fieldName()))
-                .findFirst()
-                .map(HttpHeaderField::fileValue);
+        final int i = find(HttpHeaderName.hash(fieldName), fieldName);
+        return i < 0 ? Optional.empty() : Optional.of(value(i));
+    }
+
+    public Optional<String> getHeader(final HttpHeaderName fieldName) {
+        Objects.requireNonNull(fieldName, "fieldName can not be null");
+
+        final int i = find(fieldName.hash(), fieldName.name());
+        return i < 0 ? Optional.empty() : Optional.of(value(i));
     }
 
     public Iterable<String> getCookies() {
-        return list.stream()
-                .filter(e -> "set-cookie".equalsIgnoreCase(e.fieldName()))
-                .map(HttpHeaderField::fileValue)
-                .collect(Collectors.toList());
+        int i = find(HttpHeaderName.SET_COOKIE.hash(), HttpHeaderName.SET_COOKIE.name());
+        if (i < 0) {
+            return Collections.emptyList();
+        }
+
+        final ArrayList<String> cookies = new ArrayList<>();
+        for (; i >= 0; i = previous[i]) {
+            cookies.add(value(i));
+        }
+        Collections.reverse(cookies);
+        return cookies;
     }
 
     @Override
     public Iterator<HttpHeaderField> iterator() {
-        return list.iterator();
+        return new Iterator<HttpHeaderField>() {
+            private int next = effectiveFrom(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public HttpHeaderField next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                final HttpHeaderField field = new HttpHeaderField(name(next), value(next));
+                next = effectiveFrom(next + 1);
+                return field;
+            }
+        };
     }
 
     @Override
     public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(field -> joiner.add(field.toString()));
         return "HttpHeader{" +
-                "list=" + list +
+                "list=" + joiner +
                 '}';
     }
 
+    private static int tableSize(final int size) {
+        // keeps the load factor at or below 0.5
+        return Math.max(4, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1);
+    }
+
+    private void buildIndex() {
+        final int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            previous[i] = -1;
+
+            int slot = hashes[i] & mask;
+            while (slots[slot] != 0) {
+                final int j = slots[slot] - 1;
+                if (hashes[j] == hashes[i] && sameName(j, i)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (slots[slot] != 0) {
+                final int j = slots[slot] - 1;
+                previous[i] = j;
+                replaced[j] = hashes[i] != HttpHeaderName.SET_COOKIE.hash()
+                        || !nameEquals(i, HttpHeaderName.SET_COOKIE.name());
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return the last field named {@code fieldName}, -1 if none
+     */
+    private int find(final int hash, final String fieldName) {
+        final int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            final int i = slots[slot] - 1;
+            if (hashes[i] == hash && nameEquals(i, fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String name(final int i) {
+        String name = names[i];
+        if (name == null) {
+            final int base = i * FIELD_STRIDE;
+            name = new String(raw, index[base + NAME_OFFSET], index[base + NAME_LENGTH], StandardCharsets.US_ASCII);
+            names[i] = name;
+        }
+        return name;
+    }
+
+    private String value(final int i) {
+        String value = values[i];
+        if (value == null) {
+            final int base = i * FIELD_STRIDE;
+            value = new String(raw, index[base + VALUE_OFFSET], index[base + VALUE_LENGTH], StandardCharsets.ISO_8859_1);
+            values[i] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Compares a field name with {@code fieldName} ignoring case, without decoding the raw bytes.
+     */
+    private boolean nameEquals(final int i, final String fieldName) {
+        if (raw == null) {
+            return fieldName.equalsIgnoreCase(names[i]);
+        }
+
+        final int base = i * FIELD_STRIDE;
+        final int offset = index[base + NAME_OFFSET];
+        final int length = index[base + NAME_LENGTH];
+        if (length != fieldName.length()) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (HttpHeaderName.toLowerCase(raw[offset + j] & 0xFF) != HttpHeaderName.toLowerCase(fieldName.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameName(final int i, final int j) {
+        if (raw == null) {
+            return names[i].equalsIgnoreCase(names[j]);
+        }
+
+        final int iOffset = index[i * FIELD_STRIDE + NAME_OFFSET];
+        final int jOffset = index[j * FIELD_STRIDE + NAME_OFFSET];
+        final int length = index[i * FIELD_STRIDE + NAME_LENGTH];
+        if (length != index[j * FIELD_STRIDE + NAME_LENGTH]) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (HttpHeaderName.toLowerCase(raw[iOffset + k] & 0xFF) != HttpHeaderName.toLowerCase(raw[jOffset + k] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return first field at or after {@code from} which is not replaced by a later one, {@code size} if none
+     */
+    private int effectiveFrom(final int from) {
+        for (int i = from; i < size; i++) {
+            if (!replaced[i]) {
+                return i;
+            }
+        }
+        return size;
+    }
+
     private static String checkFieldName(final String fieldName) {
         return Objects.requireNonNull(fieldName, "fieldName can not be null");
     }
@@ -51,83 +287,150 @@ public class HttpHeader implements Iterable<HttpHeaderField> {
         return new Builder();
     }
 
+    /**
+     * Collects fields in insertion order in flat parallel arrays. {@link #build()} copies them once, and
+     * {@link #reset()} empties the builder so it can be reused for the next message.
+     */
     public static class Builder {
-        private final Map<String, List<HttpHeaderField>> inner;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private String[] names;
+        private String[] values;
+        private int size;
 
         private Builder() {
-            this.inner = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.names = new String[INITIAL_CAPACITY];
+            this.values = new String[INITIAL_CAPACITY];
         }
 
         public Builder addField(final String fieldName, final String fieldValue) {
-            inner.computeIfAbsent(checkFieldName(fieldName), k -> new LinkedList<>())
-                    .add(new HttpHeaderField(fieldName, checkFieldName(fieldValue)));
+            checkFieldName(fieldName);
+            checkFieldValue(fieldValue);
+
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            names[size] = fieldName;
+            values[size] = fieldValue;
+            size++;
             return this;
         }
 
         public Optional<String> getField(final String fieldName) {
-            final List<HttpHeaderField> httpHeaderFields = inner.get(checkFieldName(fieldName));
-            if (httpHeaderFields == null) {
-                return Optional.empty();
-            } else {
-                return Optional.of(httpHeaderFields.get(httpHeaderFields.size() - 1).fileValue());
+            checkFieldName(fieldName);
+
+            for (int i = size - 1; i >= 0; i--) {
+                if (fieldName.equalsIgnoreCase(names[i])) {
+                    return Optional.of(values[i]);
+                }
             }
+            return Optional.empty();
         }
 
         public Iterable<String> getFields(final String fieldName) {
-            return inner.getOrDefault(checkFieldValue(fieldName), Collections.emptyList())
-                    .stream()
-                    .map(HttpHeaderField::fileValue)
-                    .collect(Collectors.toList());
+            checkFieldName(fieldName);
+
+            final List<String> fields = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (fieldName.equalsIgnoreCase(names[i])) {
+                    fields.add(values[i]);
+                }
+            }
+            return fields;
         }
 
+        /**
+         * Removes the fields named {@code fieldName} whose value is {@code fieldValue}.
+         *
+         * @return whether any field was named {@code fieldName}
+         */
         public boolean removeField(final String fieldName, final String fieldValue) {
+            checkFieldName(fieldName);
             checkFieldValue(fieldValue);
 
-            final List<HttpHeaderField> httpHeaderFields = inner.get(checkFieldName(fieldName));
-            if (httpHeaderFields == null) {
-                return false;
-            }
-
-            httpHeaderFields.removeIf(httpHeaderField -> fieldValue.equals(httpHeaderField.fileValue()));
-            if (httpHeaderFields.isEmpty()) {
-                inner.remove(fieldName);
+            boolean found = false;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (fieldName.equalsIgnoreCase(names[i])) {
+                    found = true;
+                    if (fieldValue.equals(values[i])) {
+                        continue;
+                    }
+                }
+                names[kept] = names[i];
+                values[kept] = values[i];
+                kept++;
             }
-
-            return true;
+            truncate(kept);
+            return found;
         }
 
         public Iterable<String> removeFields(final String fieldName) {
-            final List<HttpHeaderField> removed =
-                    inner.remove(checkFieldValue(fieldName));
+            checkFieldName(fieldName);
 
-            return removed != null ? removed.stream().map(HttpHeaderField::fileValue).collect(Collectors.toList()) : Collections.emptyList();
+            final List<String> removed = new ArrayList<>();
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (fieldName.equalsIgnoreCase(names[i])) {
+                    removed.add(values[i]);
+                    continue;
+                }
+                names[kept] = names[i];
+                values[kept] = values[i];
+                kept++;
+            }
+            truncate(kept);
+            return removed;
         }
 
         public Iterator<HttpHeaderField> iterator() {
-            return inner.values().stream().flatMap(List::stream).iterator();
+            return new Iterator<HttpHeaderField>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public HttpHeaderField next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    final HttpHeaderField field = new HttpHeaderField(names[next], values[next]);
+                    next++;
+                    return field;
+                }
+            };
+        }
+
+        /**
+         * Drops every field, keeping the arrays for reuse.
+         */
+        public Builder reset() {
+            truncate(0);
+            return this;
         }
 
         public HttpHeader build() {
-            return new HttpHeader(
-                    inner.entrySet()
-                            .stream()
-                            .flatMap(e -> {
-                                final String key = e.getKey();
-                                final List<HttpHeaderField> value = e.getValue();
-
-                                if ("set-cookie".equalsIgnoreCase(key)) {
-                                    return value.stream();
-                                } else {
-                                    return Stream.of(value.get(value.size() - 1));
-                                }
-                            }).collect(Collectors.toList())
-            );
+            return new HttpHeader(Arrays.copyOf(names, size), Arrays.copyOf(values, size), size);
+        }
+
+        private void truncate(final int newSize) {
+            Arrays.fill(names, newSize, size, null);
+            Arrays.fill(values, newSize, size, null);
+            size = newSize;
         }
 
         @Override
         public String toString() {
+            final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < size; i++) {
+                joiner.add(names[i] + ": " + values[i]);
+            }
             return "Builder{" +
-                    "inner=" + inner +
+                    "fields=" + joiner +
                     '}';
         }
     }
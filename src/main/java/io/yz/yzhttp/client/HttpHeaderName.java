@@ -0,0 +1,129 @@
+package io.yz.yzhttp.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A field-name with its case-insensitive hash computed once.
+ * <p>
+ * Looking up a {@link HttpHeader} by one of the constants below skips hashing the name on every call, and the
+ * request encoder writes their pre-encoded bytes instead of encoding the name on every request.
+ */
+public final class HttpHeaderName {
+    public static final HttpHeaderName ACCEPT = new HttpHeaderName("Accept");
+    public static final HttpHeaderName ACCEPT_ENCODING = new HttpHeaderName("Accept-Encoding");
+    public static final HttpHeaderName CACHE_CONTROL = new HttpHeaderName("Cache-Control");
+    public static final HttpHeaderName CONNECTION = new HttpHeaderName("Connection");
+    public static final HttpHeaderName CONTENT_ENCODING = new HttpHeaderName("Content-Encoding");
+    public static final HttpHeaderName CONTENT_LENGTH = new HttpHeaderName("Content-Length");
+    public static final HttpHeaderName CONTENT_TYPE = new HttpHeaderName("Content-Type");
+    public static final HttpHeaderName COOKIE = new HttpHeaderName("Cookie");
+    public static final HttpHeaderName DATE = new HttpHeaderName("Date");
+    public static final HttpHeaderName ETAG = new HttpHeaderName("ETag");
+    public static final HttpHeaderName EXPIRES = new HttpHeaderName("Expires");
+    public static final HttpHeaderName HOST = new HttpHeaderName("Host");
+    public static final HttpHeaderName KEEP_ALIVE = new HttpHeaderName("Keep-Alive");
+    public static final HttpHeaderName LAST_MODIFIED = new HttpHeaderName("Last-Modified");
+    public static final HttpHeaderName LOCATION = new HttpHeaderName("Location");
+    public static final HttpHeaderName SERVER = new HttpHeaderName("Server");
+    public static final HttpHeaderName SET_COOKIE = new HttpHeaderName("Set-Cookie");
+    public static final HttpHeaderName TRAILER = new HttpHeaderName("Trailer");
+    public static final HttpHeaderName TRANSFER_ENCODING = new HttpHeaderName("Transfer-Encoding");
+    public static final HttpHeaderName USER_AGENT = new HttpHeaderName("User-Agent");
+    public static final HttpHeaderName VARY = new HttpHeaderName("Vary");
+
+    private static final Map<String, HttpHeaderName> KNOWN = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        for (HttpHeaderName name : new HttpHeaderName[]{
+                ACCEPT, ACCEPT_ENCODING, CACHE_CONTROL, CONNECTION, CONTENT_ENCODING, CONTENT_LENGTH, CONTENT_TYPE,
+                COOKIE, DATE, ETAG, EXPIRES, HOST, KEEP_ALIVE, LAST_MODIFIED, LOCATION, SERVER, SET_COOKIE, TRAILER,
+                TRANSFER_ENCODING, USER_AGENT, VARY,
+        }) {
+            KNOWN.put(name.name, name);
+        }
+    }
+
+    private final String name;
+    private final int hash;
+    private final byte[] bytes;
+
+    private HttpHeaderName(final String name) {
+        this.name = name;
+        this.hash = hash(name);
+        this.bytes = name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param name field-name
+     * @return the constant for a known name, a new instance otherwise
+     */
+    public static HttpHeaderName of(final String name) {
+        Objects.requireNonNull(name, "name can not be null");
+
+        final HttpHeaderName known = KNOWN.get(name);
+        return known != null ? known : new HttpHeaderName(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    int hash() {
+        return hash;
+    }
+
+    /**
+     * @return US-ASCII bytes of the name, not to be modified
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * ASCII case-insensitive hash, equal to {@link #hash(byte[], int, int)} over the same name bytes.
+     */
+    static int hash(final CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + toLowerCase(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(final byte[] name, final int offset, final int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + toLowerCase(name[i] & 0xFF);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static int toLowerCase(final int c) {
+        return 'A' <= c && c <= 'Z' ? c + 0x20 : c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HttpHeaderName that = (HttpHeaderName) o;
+        return name.equalsIgnoreCase(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,32 +1,72 @@
 package io.yz.yzhttp.client;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.yz.yzhttp.constant.HttpMethod;
 import io.yz.yzhttp.constant.HttpVersion;
 
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
 public class HttpRequest {
     private final String host;
     private final int port;
+    private final boolean secure;
     private final HttpMethod method;
     private final String path;
     private final HttpVersion version;
-    private final Map<String, String> header;
+    private final HttpHeaderName[] headerNames;
+    private final String[] headerValues;
+    private final RequestTemplate template;
+    private final RequestBody body;
 
-    private ByteBuf cache;
-
-    private HttpRequest(String host, int port, HttpMethod method, String path, HttpVersion version, Map<String, String> header) {
+    private HttpRequest(String host, int port, boolean secure, HttpMethod method, String path, HttpVersion version, Map<String, String> header, RequestBody body) {
         this.host = host;
         this.port = port;
+        this.secure = secure;
         this.method = method;
         this.path = path;
         this.version = version;
-        this.header = header;
+        this.headerNames = new HttpHeaderName[header.size()];
+        this.headerValues = new String[header.size()];
+
+        int i = 0;
+        for (Map.Entry<String, String> entry : header.entrySet()) {
+            headerNames[i] = HttpHeaderName.of(entry.getKey());
+            headerValues[i] = entry.getValue();
+            i++;
+        }
+        this.template = null;
+        this.body = body;
+    }
+
+    /**
+     * A call of {@code template}, the header arrays only hold the variable fields.
+     */
+    HttpRequest(RequestTemplate template, String path, HttpHeaderName[] headerNames, String[] headerValues) {
+        this.host = template.host();
+        this.port = template.port();
+        this.secure = template.secure();
+        this.method = template.method();
+        this.path = path;
+        this.version = template.version();
+        this.headerNames = headerNames;
+        this.headerValues = headerValues;
+        this.template = template;
+        this.body = null;
+    }
+
+    private HttpRequest(HttpRequest request, HttpVersion version) {
+        this.host = request.host;
+        this.port = request.port;
+        this.secure = request.secure;
+        this.method = request.method;
+        this.path = request.path;
+        this.version = version;
+        this.headerNames = request.headerNames;
+        this.headerValues = request.headerValues;
+        this.template = request.template;
+        this.body = request.body;
     }
 
     public String host() {
@@ -37,86 +77,79 @@ public class HttpRequest {
         return this.port;
     }
 
-    ByteBuf cache() {
-        if (cache == null) {
-            buildCache();
-        }
-        return cache;
+    /**
+     * @return whether the request is sent over TLS
+     */
+    public boolean secure() {
+        return this.secure;
     }
 
-    private void buildCache() {
-        if (cache != null) {
-            return;
-        }
+    public HttpMethod method() {
+        return this.method;
+    }
 
-        cache = Unpooled.directBuffer();
+    String path() {
+        return path;
+    }
 
-        switch (method) {
-            case GET:
-                cache.writeCharSequence("GET ", StandardCharsets.US_ASCII);
-                break;
-            case HEAD:
-                cache.writeCharSequence("HEAD ", StandardCharsets.US_ASCII);
-                break;
-            case POST:
-                cache.writeCharSequence("POST ", StandardCharsets.US_ASCII);
-                break;
-            case PUT:
-                cache.writeCharSequence("PUT ", StandardCharsets.US_ASCII);
-                break;
-            case DELETE:
-                cache.writeCharSequence("DELETE ", StandardCharsets.US_ASCII);
-                break;
-            case CONNECT:
-                cache.writeCharSequence("CONNECT ", StandardCharsets.US_ASCII);
-                break;
-            case OPTIONS:
-                cache.writeCharSequence("OPTIONS ", StandardCharsets.US_ASCII);
-                break;
-            case TRACE:
-                cache.writeCharSequence("TRACE ", StandardCharsets.US_ASCII);
-                break;
-            case PATCH:
-                cache.writeCharSequence("PATCH ", StandardCharsets.US_ASCII);
-        }
+    HttpVersion version() {
+        return version;
+    }
 
-        cache.writeCharSequence(path, StandardCharsets.UTF_8);
+    /**
+     * @return this request sent as {@code version}, sharing its fields and body
+     */
+    HttpRequest withVersion(final HttpVersion version) {
+        return new HttpRequest(this, version);
+    }
 
-        switch (version) {
-            case HTTP_1_0:
-                cache.writeCharSequence(" HTTP/1.0", StandardCharsets.US_ASCII);
-                break;
-            case HTTP_1_1:
-                cache.writeCharSequence(" HTTP/1.1", StandardCharsets.US_ASCII);
-                break;
-        }
+    HttpHeaderName[] headerNames() {
+        return headerNames;
+    }
+
+    String[] headerValues() {
+        return headerValues;
+    }
 
-        cache.writeByte(0x0D);
-        cache.writeByte(0x0A);
+    /**
+     * @return whether the request, or the template it was made from, has a {@code name} field
+     */
+    boolean hasField(final HttpHeaderName name) {
+        for (HttpHeaderName headerName : headerNames) {
+            if (headerName.equals(name)) {
+                return true;
+            }
+        }
+        return template != null && template.hasField(name);
+    }
 
-        header.forEach((k, v) -> {
-            cache.writeCharSequence(k, StandardCharsets.UTF_8);
-            cache.writeCharSequence(": ", StandardCharsets.US_ASCII);
-            cache.writeCharSequence(v, StandardCharsets.UTF_8);
-            cache.writeByte(0x0D);
-            cache.writeByte(0x0A);
-        });
+    /**
+     * @return template this request was made from, {@code null} if built directly
+     */
+    RequestTemplate template() {
+        return template;
+    }
 
-        cache.writeByte(0x0D);
-        cache.writeByte(0x0A);
+    /**
+     * @return message-body, {@code null} if none
+     */
+    RequestBody body() {
+        return body;
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
-    static class Builder {
+    public static class Builder {
         private String host;
         private Integer port;
+        private boolean secure;
         private HttpMethod method;
         private String path;
         private HttpVersion version;
         private final Map<String, String> header = new HashMap<>();
+        private RequestBody body;
 
         Builder() {
             header.put("User-Agent", "YzClient");
@@ -140,6 +173,18 @@ public class HttpRequest {
             return this;
         }
 
+        public boolean isSecure() {
+            return secure;
+        }
+
+        /**
+         * Sends the request over TLS, with {@code https} semantics.
+         */
+        public Builder setSecure(boolean secure) {
+            this.secure = secure;
+            return this;
+        }
+
         public HttpMethod getMethod() {
             return method;
         }
@@ -181,18 +226,70 @@ public class HttpRequest {
             return this;
         }
 
+        public RequestBody getBody() {
+            return body;
+        }
+
+        /**
+         * Sets the message-body, a {@code Content-Length} field is added for it unless one was added.
+         */
+        public Builder setBody(RequestBody body) {
+            this.body = body;
+            return this;
+        }
+
         public HttpRequest build() {
-            Objects.requireNonNull(host);
-            Objects.requireNonNull(host);
+            Objects.requireNonNull(host, "host can not be null");
+            Objects.requireNonNull(method, "method can not be null");
+            Objects.requireNonNull(path, "path can not be null");
+            Objects.requireNonNull(version, "version can not be null");
 
             return new HttpRequest(
                     host,
                     port,
+                    secure,
                     method,
                     path,
                     version,
-                    header
+                    fields(),
+                    body
             );
         }
+
+        /**
+         * Freezes everything but the path into a {@link RequestTemplate}, the path set here is ignored.
+         */
+        public RequestTemplate buildTemplate() {
+            Objects.requireNonNull(host, "host can not be null");
+            Objects.requireNonNull(method, "method can not be null");
+            Objects.requireNonNull(version, "version can not be null");
+            if (body != null) {
+                throw new IllegalStateException("a template can not have a body");
+            }
+
+            return new RequestTemplate(host, port, secure, method, version, fields());
+        }
+
+        /**
+         * @return header fields plus {@code Host} and, with a body, {@code Content-Length} unless they were added
+         */
+        private Map<String, String> fields() {
+            boolean hasHost = false;
+            boolean hasContentLength = false;
+            for (String name : header.keySet()) {
+                hasHost |= HttpHeaderName.HOST.name().equalsIgnoreCase(name);
+                hasContentLength |= HttpHeaderName.CONTENT_LENGTH.name().equalsIgnoreCase(name);
+            }
+
+            final Map<String, String> fields = new LinkedHashMap<>();
+            if (!hasHost) {
+                fields.put(HttpHeaderName.HOST.name(), port == (secure ? 443 : 80) ? host : host + ':' + port);
+            }
+            fields.putAll(header);
+            if (body != null && !hasContentLength) {
+                fields.put(HttpHeaderName.CONTENT_LENGTH.name(), Long.toString(body.contentLength()));
+            }
+            return fields;
+        }
     }
 }
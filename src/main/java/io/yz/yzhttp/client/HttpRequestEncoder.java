@@ -0,0 +1,171 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.PromiseCombiner;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns an outbound {@link HttpRequest} into its encoded bytes.
+ * <p>
+ * The request head is written into a buffer from the channel's allocator, sized exactly by a length pre-pass, so it
+ * never grows while encoding. Methods, versions and known header names are copied from pre-encoded bytes. The
+ * buffer is released by the transport once written, or here if encoding fails.
+ * <p>
+ * Requests made from a {@link RequestTemplate} are encoded by the template instead.
+ * <p>
+ * A {@link RequestBody} is written as a separate message after the head. A file goes out as a
+ * {@link io.netty.channel.FileRegion}, which the transport sends with {@code sendfile}. When a {@link SslHandler} has
+ * to see the bytes, it is read in chunks through the {@link ChunkedWriteHandler} closer to the head of the pipeline.
+ */
+@ChannelHandler.Sharable
+final class HttpRequestEncoder extends ChannelOutboundHandlerAdapter {
+    static final byte[] EMPTY = new byte[0];
+    static final HttpRequestEncoder INSTANCE = new HttpRequestEncoder(EMPTY);
+    /**
+     * Also asks for the codings {@link io.yz.yzhttp.client.low.HttpContentDecompressor} decodes, unless the request
+     * has its own {@code Accept-Encoding}.
+     */
+    static final HttpRequestEncoder ACCEPT_COMPRESSED = new HttpRequestEncoder(
+            "Accept-Encoding: gzip, deflate\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    static final int CRLF_SHORT = ('\r' << 8) | '\n';
+    private static final int COLON_SP_SHORT = (':' << 8) | ' ';
+
+    /**
+     * {@code "GET "} etc. by ordinal.
+     */
+    private static final byte[][] METHODS = new byte[HttpMethod.values().length][];
+    /**
+     * {@code " HTTP/1.1\r\n"} etc. by ordinal, {@code null} where the version can not be sent as HTTP/1.x.
+     */
+    private static final byte[][] VERSIONS = new byte[HttpVersion.values().length][];
+
+    static {
+        for (HttpMethod method : HttpMethod.values()) {
+            METHODS[method.ordinal()] = (method.name() + ' ').getBytes(StandardCharsets.US_ASCII);
+        }
+        VERSIONS[HttpVersion.HTTP_1_0.ordinal()] = " HTTP/1.0\r\n".getBytes(StandardCharsets.US_ASCII);
+        VERSIONS[HttpVersion.HTTP_1_1.ordinal()] = " HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Pre-encoded fields added to requests without an {@code Accept-Encoding} field.
+     */
+    private final byte[] acceptEncoding;
+
+    private HttpRequestEncoder(final byte[] acceptEncoding) {
+        this.acceptEncoding = acceptEncoding;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof HttpRequest)) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        final HttpRequest request = (HttpRequest) msg;
+        final RequestBody body = request.body();
+        final Object content = body != null ? body.content(ctx.pipeline().get(SslHandler.class) == null) : null;
+
+        final byte[] extraFields = request.hasField(HttpHeaderName.ACCEPT_ENCODING) ? EMPTY : acceptEncoding;
+        final ByteBuf head;
+        try {
+            head = request.template() != null
+                    ? request.template().encode(ctx.alloc(), request, extraFields)
+                    : encode(ctx.alloc(), request, extraFields);
+        } catch (Throwable e) {
+            if (content instanceof ChunkedInput) {
+                ((ChunkedInput<?>) content).close();
+            } else {
+                ReferenceCountUtil.release(content);
+            }
+            throw e;
+        }
+
+        if (content == null) {
+            ctx.write(head, promise);
+            return;
+        }
+
+        final PromiseCombiner combiner = new PromiseCombiner(ctx.executor());
+        combiner.add(ctx.write(head));
+        combiner.add(ctx.write(content));
+        combiner.finish(promise);
+    }
+
+    /**
+     * @param extraFields pre-encoded fields written after the request's own
+     */
+    static ByteBuf encode(final ByteBufAllocator alloc, final HttpRequest msg, final byte[] extraFields) {
+        final ByteBuf out = alloc.ioBuffer(length(msg) + extraFields.length);
+        try {
+            out.writeBytes(methodBytes(msg.method()));
+            ByteBufUtil.writeUtf8(out, msg.path());
+            out.writeBytes(versionBytes(msg.version()));
+            writeFields(out, msg.headerNames(), msg.headerValues());
+            out.writeBytes(extraFields);
+            out.writeShort(CRLF_SHORT);
+            return out;
+        } catch (Throwable e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return exact encoded length of the request head, without extra fields
+     */
+    static int length(final HttpRequest msg) {
+        return methodBytes(msg.method()).length
+                + ByteBufUtil.utf8Bytes(msg.path())
+                + versionBytes(msg.version()).length
+                + fieldsLength(msg.headerNames(), msg.headerValues())
+                + 2;
+    }
+
+    static int fieldsLength(final HttpHeaderName[] names, final String[] values) {
+        int length = 0;
+        for (int i = 0; i < names.length; i++) {
+            length += names[i].bytes().length + 2 + ByteBufUtil.utf8Bytes(values[i]) + 2;
+        }
+        return length;
+    }
+
+    static void writeFields(final ByteBuf out, final HttpHeaderName[] names, final String[] values) {
+        for (int i = 0; i < names.length; i++) {
+            out.writeBytes(names[i].bytes());
+            out.writeShort(COLON_SP_SHORT);
+            ByteBufUtil.writeUtf8(out, values[i]);
+            out.writeShort(CRLF_SHORT);
+        }
+    }
+
+    static byte[] methodBytes(final HttpMethod method) {
+        return METHODS[method.ordinal()];
+    }
+
+    /**
+     * @return {@code SP HTTP-version CRLF}
+     */
+    static byte[] versionBytes(final HttpVersion version) {
+        final byte[] bytes = VERSIONS[version.ordinal()];
+        if (bytes == null) {
+            throw new IllegalArgumentException(version + " can not be encoded as HTTP/1.x");
+        }
+        return bytes;
+    }
+}
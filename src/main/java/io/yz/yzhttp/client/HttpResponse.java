@@ -18,4 +18,35 @@ public class HttpResponse {
         this.httpHeader = httpHeader;
         this.messageBody = messageBody;
     }
+
+    public HttpVersion httpVersion() {
+        return httpVersion;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public String reasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public HttpHeader httpHeader() {
+        return httpHeader;
+    }
+
+    public ByteBuffer messageBody() {
+        return messageBody;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponse{" +
+                "httpVersion=" + httpVersion +
+                ", statusCode=" + statusCode +
+                ", reasonPhrase='" + reasonPhrase + '\'' +
+                ", httpHeader=" + httpHeader +
+                ", messageBody=" + messageBody +
+                '}';
+    }
 }
@@ -0,0 +1,17 @@
+package io.yz.yzhttp.client;
+
+/**
+ * What {@link YzClient} does with a request beyond its host's adaptive concurrency limit, see
+ * {@link YzClientConfig#adaptiveConcurrency()}.
+ */
+public enum LimitPolicy {
+    /**
+     * Wait until a request to the same {@code host:port} completes, up to {@code maxPendingRequestsPerHost} requests,
+     * and fail with a {@link ConcurrencyLimitException} beyond.
+     */
+    QUEUE,
+    /**
+     * Fail with a {@link ConcurrencyLimitException} at once.
+     */
+    FAIL_FAST,
+}
@@ -0,0 +1,39 @@
+package io.yz.yzhttp.client;
+
+/**
+ * Receives what a {@link YzClient} measures, to export it elsewhere, see
+ * {@link YzClientConfig.Builder#setMetricsListener}. The client's own {@link ClientMetrics} is fed the same calls.
+ * <p>
+ * Every method is called on an event loop and must return quickly without blocking. {@code host} is the host of the
+ * request as given, without the port.
+ */
+public interface MetricsListener {
+    MetricsListener NOOP = new MetricsListener() {
+    };
+
+    default void phase(final String host, final RequestPhase phase, final long nanos) {
+    }
+
+    /**
+     * @param bytes read from a connection since the last call for it, TLS records included
+     */
+    default void bytesRead(final String host, final long bytes) {
+    }
+
+    /**
+     * @param bytes written to a connection since the last call for it, TLS records included
+     */
+    default void bytesWritten(final String host, final long bytes) {
+    }
+
+    /**
+     * A request got a connection, or a stream of an HTTP/2 connection.
+     *
+     * @param reused whether the connection carried a request before
+     */
+    default void connectionAcquired(final String host, final boolean reused) {
+    }
+
+    default void parseError(final String host, final ProtocolParseException cause) {
+    }
+}
@@ -0,0 +1,233 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.yz.yzhttp.client.low.HttpResponseEndEvent;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+import io.yz.yzhttp.client.low.HttpResponseStartEvent;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Counts the requests in flight on a pooled connection and hands the connection back to its pool once the last
+ * response has ended, or when the connection is gone.
+ * <p>
+ * The count is 0 while the connection sits idle in the pool. Acquiring it from the pool sets the count to 1, further
+ * pipelined requests are reserved with {@link #tryReserve()} and never revive a connection whose count dropped to 0.
+ * <p>
+ * {@link HttpExchange}s written to the connection are queued in write order, the same order the responses come back
+ * in. Each response is aggregated into the exchange at the head of the queue and completes its future on the event
+ * loop. Exchanges still queued when the connection fails are failed. When it closes, after a {@code Connection: close}
+ * response or by surprise, the idempotent requests that got no byte of their response, and those whose write failed
+ * because of the close, are handed to {@code retry} to be sent once more on another connection, as RFC 7230 sections
+ * 6.3.1 and 6.3.2 allow. That covers a kept-alive connection the server closed while it was being reused. Only the
+ * exchange whose response was cut off fails. Once written to the connection an exchange is taken care of here, so
+ * the write's promise is always successful.
+ * <p>
+ * A streamed response turns {@code autoRead} off once its head is read, see {@link BodyPublisher}; it is turned back
+ * on when the response ends and before the connection goes back to the pool.
+ * <p>
+ * The write, time to first byte, header parse and body phases of each exchange are timed here, the first byte being
+ * marked by a {@link HttpResponseStartEvent}.
+ */
+final class PooledConnectionHandler extends ChannelDuplexHandler {
+    private final Consumer<Channel> releaser;
+    private final Consumer<HttpExchange> retry;
+    private final int maxPipelineDepth;
+    private final String host;
+    private final MetricsListener listener;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<HttpExchange> exchanges = new ArrayDeque<>();
+
+    private volatile Channel channel;
+    private boolean used;
+    private boolean responding;
+    private long firstByteNanos;
+    private long headNanos;
+
+    PooledConnectionHandler(final Consumer<Channel> releaser, final Consumer<HttpExchange> retry,
+                            final int maxPipelineDepth, final String host, final MetricsListener listener) {
+        this.releaser = releaser;
+        this.retry = retry;
+        this.maxPipelineDepth = maxPipelineDepth;
+        this.host = host;
+        this.listener = listener;
+    }
+
+    Channel channel() {
+        return channel;
+    }
+
+    /**
+     * @return whether the connection was acquired before
+     */
+    boolean acquired() {
+        inFlight.set(1);
+        final boolean reused = used;
+        used = true;
+        return reused;
+    }
+
+    boolean tryReserve() {
+        for (; ; ) {
+            final int current = inFlight.get();
+            if (current == 0 || current >= maxPipelineDepth) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        channel = ctx.channel();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof HttpExchange)) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        final HttpExchange exchange = (HttpExchange) msg;
+        exchanges.add(exchange);
+        final long start = System.nanoTime();
+        ctx.write(exchange.request()).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                final long now = System.nanoTime();
+                exchange.written(now);
+                listener.phase(host, RequestPhase.WRITE, now - start);
+            } else {
+                // not queued any more once handed to retry when the connection closed
+                if (exchanges.remove(exchange) && (future.channel().isActive() || !retry(exchange))) {
+                    exchange.fail(future.cause());
+                }
+                future.channel().close();
+            }
+        });
+        // from here on the exchange is failed or retried here, not by the writer
+        promise.setSuccess();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        final HttpExchange exchange = exchanges.peek();
+        if (exchange != null && msg instanceof ByteBuf) {
+            exchange.content((ByteBuf) msg);
+            return;
+        }
+
+        try {
+            if (exchange != null && msg instanceof HttpResponseHead) {
+                headNanos = System.nanoTime();
+                listener.phase(host, RequestPhase.HEADER_PARSE, headNanos - firstByteNanos);
+                exchange.head(ctx, (HttpResponseHead) msg);
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof HttpResponseEndEvent && headNanos != 0) {
+            listener.phase(host, RequestPhase.BODY, System.nanoTime() - headNanos);
+            headNanos = 0;
+        }
+
+        if (evt == HttpResponseStartEvent.INSTANCE) {
+            responding = true;
+            firstByteNanos = System.nanoTime();
+            final HttpExchange exchange = exchanges.peek();
+            if (exchange != null && exchange.writtenNanos() != 0) {
+                listener.phase(host, RequestPhase.TIME_TO_FIRST_BYTE, firstByteNanos - exchange.writtenNanos());
+            }
+        } else if (evt == HttpResponseEndEvent.KEEP_ALIVE) {
+            responding = false;
+            final HttpExchange exchange = exchanges.poll();
+            if (!ctx.channel().config().isAutoRead()) {
+                ctx.channel().config().setAutoRead(true);
+            }
+            if (inFlight.decrementAndGet() == 0) {
+                releaser.accept(ctx.channel());
+            }
+            if (exchange != null) {
+                exchange.complete();
+            }
+        } else if (evt == HttpResponseEndEvent.CLOSE) {
+            responding = false;
+            final HttpExchange exchange = exchanges.poll();
+            retryAll(new ClosedChannelException());
+            ctx.close();
+            if (exchange != null) {
+                exchange.complete();
+            }
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        final ClosedChannelException cause = new ClosedChannelException();
+        // cut off in the middle of its response, every other one can be sent again
+        final HttpExchange answering = responding ? exchanges.poll() : null;
+        retryAll(cause);
+        if (answering != null) {
+            answering.fail(cause);
+        }
+        if (inFlight.getAndSet(0) > 0) {
+            releaser.accept(ctx.channel());
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (cause instanceof ProtocolParseException) {
+            listener.parseError(host, (ProtocolParseException) cause);
+        }
+        failAll(cause);
+        ctx.close();
+    }
+
+    /**
+     * @return whether {@code exchange} was handed to {@link #retry}, only an idempotent one and only once
+     */
+    private boolean retry(final HttpExchange exchange) {
+        if (!exchange.retry()) {
+            return false;
+        }
+        retry.accept(exchange);
+        return true;
+    }
+
+    /**
+     * Retries the queued exchanges, none of which got any of its response, and fails those that can not be.
+     */
+    private void retryAll(final Throwable cause) {
+        for (HttpExchange exchange; (exchange = exchanges.poll()) != null; ) {
+            if (!retry(exchange)) {
+                exchange.fail(cause);
+            }
+        }
+    }
+
+    private void failAll(final Throwable cause) {
+        for (HttpExchange exchange; (exchange = exchanges.poll()) != null; ) {
+            exchange.fail(cause);
+        }
+    }
+}
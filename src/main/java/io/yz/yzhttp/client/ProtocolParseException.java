@@ -1,4 +1,10 @@
 package io.yz.yzhttp.client;
 
 public class ProtocolParseException extends RuntimeException {
+    public ProtocolParseException() {
+    }
+
+    public ProtocolParseException(final Throwable cause) {
+        super(cause);
+    }
 }
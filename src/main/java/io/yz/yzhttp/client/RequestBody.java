@@ -0,0 +1,85 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.stream.ChunkedNioFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * message-body of a request, sent with a {@code Content-Length} after the request head.
+ */
+public abstract class RequestBody {
+    private static final int CHUNK_SIZE = 8192;
+
+    private RequestBody() {
+    }
+
+    public static RequestBody ofBytes(final byte[] bytes) {
+        Objects.requireNonNull(bytes, "bytes can not be null");
+        return new BytesBody(bytes);
+    }
+
+    /**
+     * The file is sent with {@code sendfile} where the transport allows it, see {@link HttpRequestEncoder}. Its size
+     * is taken now and must not change until the request has been written.
+     */
+    public static RequestBody ofFile(final Path file) throws IOException {
+        Objects.requireNonNull(file, "file can not be null");
+        return new FileBody(file, Files.size(file));
+    }
+
+    abstract long contentLength();
+
+    /**
+     * @param zeroCopy whether the pipeline can write a {@link io.netty.channel.FileRegion} as is
+     * @return a new message to write after the head, owned by the caller
+     */
+    abstract Object content(boolean zeroCopy) throws IOException;
+
+    private static final class BytesBody extends RequestBody {
+        private final byte[] bytes;
+
+        private BytesBody(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        long contentLength() {
+            return bytes.length;
+        }
+
+        @Override
+        Object content(final boolean zeroCopy) {
+            return Unpooled.wrappedBuffer(bytes);
+        }
+    }
+
+    private static final class FileBody extends RequestBody {
+        private final Path file;
+        private final long length;
+
+        private FileBody(final Path file, final long length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        long contentLength() {
+            return length;
+        }
+
+        @Override
+        Object content(final boolean zeroCopy) throws IOException {
+            if (zeroCopy) {
+                return new DefaultFileRegion(file.toFile(), 0, length);
+            }
+            return new ChunkedNioFile(FileChannel.open(file, StandardOpenOption.READ), 0, length, CHUNK_SIZE);
+        }
+    }
+}
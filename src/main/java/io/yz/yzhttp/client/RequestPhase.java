@@ -0,0 +1,32 @@
+package io.yz.yzhttp.client;
+
+/**
+ * Timed steps of sending a request and reading its response, see {@link MetricsListener#phase}.
+ */
+public enum RequestPhase {
+    /**
+     * Resolving the host name of a new connection, near zero when the answer is cached.
+     */
+    DNS,
+    /**
+     * TCP connect of a new connection, after its host name was resolved.
+     */
+    CONNECT,
+    /**
+     * Writing the request head and body to the connection.
+     */
+    WRITE,
+    /**
+     * From the request being written to the first byte of its response.
+     */
+    TIME_TO_FIRST_BYTE,
+    /**
+     * From the first byte of the response to its parsed status-line and header fields, HTTP/1.x only as HTTP/2
+     * headers arrive decoded.
+     */
+    HEADER_PARSE,
+    /**
+     * From the parsed head to the end of the response.
+     */
+    BODY,
+}
@@ -0,0 +1,173 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A request head with everything but the path and a few header fields encoded once, made by
+ * {@link HttpRequest.Builder#buildTemplate()}.
+ * <p>
+ * Each {@link #request} call only encodes the path and the variable fields; the encoder splices them between
+ * retained slices of the frozen bytes in a {@link CompositeByteBuf}. {@link #close()} drops the template's own
+ * reference to the frozen bytes, requests still being written keep them alive.
+ */
+public final class RequestTemplate implements Closeable {
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final HttpMethod method;
+    private final HttpVersion version;
+
+    /**
+     * {@code METHOD SP}, then {@code SP HTTP-version CRLF} followed by the fixed header fields.
+     */
+    private final ByteBuf frozen;
+    private final int methodLength;
+    private final HttpHeaderName[] fixedNames;
+
+    RequestTemplate(String host, int port, boolean secure, HttpMethod method, HttpVersion version, Map<String, String> header) {
+        this.host = host;
+        this.port = port;
+        this.secure = secure;
+        this.method = method;
+        this.version = version;
+
+        final byte[] methodBytes = HttpRequestEncoder.methodBytes(method);
+        final byte[] versionBytes = HttpRequestEncoder.versionBytes(version);
+        final HttpHeaderName[] names = new HttpHeaderName[header.size()];
+        final String[] values = new String[header.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : header.entrySet()) {
+            names[i] = HttpHeaderName.of(entry.getKey());
+            values[i] = entry.getValue();
+            i++;
+        }
+
+        final ByteBuf frozen = Unpooled.directBuffer(
+                methodBytes.length + versionBytes.length + HttpRequestEncoder.fieldsLength(names, values));
+        frozen.writeBytes(methodBytes);
+        frozen.writeBytes(versionBytes);
+        HttpRequestEncoder.writeFields(frozen, names, values);
+
+        this.frozen = frozen.asReadOnly();
+        this.methodLength = methodBytes.length;
+        this.fixedNames = names;
+    }
+
+    public HttpRequest request(final String path) {
+        return request(path, Collections.emptyMap());
+    }
+
+    /**
+     * @param path   request-target
+     * @param header fields sent after the fixed ones
+     * @return request to hand to {@link YzClient}
+     */
+    public HttpRequest request(final String path, final Map<String, String> header) {
+        Objects.requireNonNull(path, "path can not be null");
+        Objects.requireNonNull(header, "header can not be null");
+
+        final HttpHeaderName[] names = new HttpHeaderName[header.size()];
+        final String[] values = new String[header.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : header.entrySet()) {
+            names[i] = HttpHeaderName.of(entry.getKey());
+            values[i] = Objects.requireNonNull(entry.getValue(), "header value can not be null");
+            i++;
+        }
+        return new HttpRequest(this, path, names, values);
+    }
+
+    String host() {
+        return host;
+    }
+
+    int port() {
+        return port;
+    }
+
+    boolean secure() {
+        return secure;
+    }
+
+    HttpMethod method() {
+        return method;
+    }
+
+    HttpVersion version() {
+        return version;
+    }
+
+    /**
+     * @return whether the frozen fields include {@code name}
+     */
+    boolean hasField(final HttpHeaderName name) {
+        for (HttpHeaderName fixedName : fixedNames) {
+            if (fixedName.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return frozen method, path, frozen version line and fields, variable and extra fields and the final CRLF
+     */
+    ByteBuf encode(final ByteBufAllocator alloc, final HttpRequest request, final byte[] extraFields) {
+        final HttpHeaderName[] names = request.headerNames();
+        final String[] values = request.headerValues();
+        final int pathLength = ByteBufUtil.utf8Bytes(request.path());
+
+        final ByteBuf requestMethod = frozen.retainedSlice(0, methodLength);
+        final ByteBuf fixed = frozen.retainedSlice(methodLength, frozen.readableBytes() - methodLength);
+        ByteBuf variable = null;
+        try {
+            variable = alloc.ioBuffer(pathLength + HttpRequestEncoder.fieldsLength(names, values) + extraFields.length + 2);
+            ByteBufUtil.writeUtf8(variable, request.path());
+            HttpRequestEncoder.writeFields(variable, names, values);
+            variable.writeBytes(extraFields);
+            variable.writeShort(HttpRequestEncoder.CRLF_SHORT);
+        } catch (RuntimeException e) {
+            requestMethod.release();
+            fixed.release();
+            if (variable != null) {
+                variable.release();
+            }
+            throw e;
+        }
+
+        final CompositeByteBuf out = alloc.compositeBuffer(4);
+        out.addComponents(true,
+                requestMethod,
+                variable.retainedSlice(0, pathLength),
+                fixed,
+                variable.slice(pathLength, variable.readableBytes() - pathLength));
+        return out;
+    }
+
+    @Override
+    public void close() {
+        frozen.release();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestTemplate{" +
+                "host='" + host + '\'' +
+                ", port=" + port +
+                ", secure=" + secure +
+                ", method=" + method +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.yz.yzhttp.client.low.HttpResponseHead;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Completes a {@link StreamingHttpResponse} as soon as the head is read and publishes the message-body through it,
+ * for {@link YzClient#sendStreaming}.
+ */
+final class StreamingExchange extends HttpExchange {
+    private final CompletableFuture<StreamingHttpResponse> future = new CompletableFuture<>();
+
+    private BodyPublisher body;
+    private int statusCode;
+
+    StreamingExchange(final HttpRequest request) {
+        super(request);
+    }
+
+    @Override
+    CompletableFuture<StreamingHttpResponse> future() {
+        return future;
+    }
+
+    @Override
+    void head(final ChannelHandlerContext ctx, final HttpResponseHead head) {
+        // reads follow the subscriber's demand from here on
+        ctx.channel().config().setAutoRead(false);
+        body = new BodyPublisher(ctx.channel());
+        statusCode = head.statusCode();
+        future.complete(new StreamingHttpResponse(
+                head.httpVersion(),
+                head.statusCode(),
+                head.reasonPhrase(),
+                head.httpHeader(),
+                body
+        ));
+    }
+
+    @Override
+    void content(final ByteBuf content) {
+        body.content(content);
+    }
+
+    @Override
+    void complete() {
+        if (body == null) {
+            fail(new ProtocolParseException());
+            return;
+        }
+        body.end();
+        ended(statusCode, null);
+    }
+
+    @Override
+    void fail(final Throwable cause) {
+        if (!future.completeExceptionally(cause) && body != null) {
+            body.fail(cause);
+        }
+        ended(0, cause);
+    }
+}
@@ -0,0 +1,58 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.reactivestreams.Publisher;
+
+/**
+ * A response whose message-body is streamed instead of aggregated, see {@link YzClient#sendStreaming}.
+ * <p>
+ * The body must be subscribed to, or cancelled, for the connection to be read any further. Each published
+ * {@link ByteBuf} belongs to the subscriber, which has to release it. Socket reads follow the subscriber's demand, so
+ * the memory held per response is one socket read plus what the subscriber has requested.
+ */
+public class StreamingHttpResponse {
+    private final HttpVersion httpVersion;
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final HttpHeader httpHeader;
+    private final Publisher<ByteBuf> messageBody;
+
+    StreamingHttpResponse(HttpVersion httpVersion, int statusCode, String reasonPhrase, HttpHeader httpHeader, Publisher<ByteBuf> messageBody) {
+        this.httpVersion = httpVersion;
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.httpHeader = httpHeader;
+        this.messageBody = messageBody;
+    }
+
+    public HttpVersion httpVersion() {
+        return httpVersion;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public String reasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public HttpHeader httpHeader() {
+        return httpHeader;
+    }
+
+    public Publisher<ByteBuf> messageBody() {
+        return messageBody;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingHttpResponse{" +
+                "httpVersion=" + httpVersion +
+                ", statusCode=" + statusCode +
+                ", reasonPhrase='" + reasonPhrase + '\'' +
+                ", httpHeader=" + httpHeader +
+                '}';
+    }
+}
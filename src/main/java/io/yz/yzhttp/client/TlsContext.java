@@ -0,0 +1,109 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client {@link SslContext}s shared by every TLS connection of a {@link YzClient}.
+ * <p>
+ * An engine is created for the server's {@code host:port}, which is also the key of the context's session cache, so
+ * a repeat connection to the same server resumes the last session instead of running a full handshake. The host name
+ * is sent as SNI and checked against the server's certificate.
+ * <p>
+ * ALPN is fixed per context, hence one offering only {@code http/1.1} and one offering {@code h2} first. Both are
+ * created on the first secure request, so a client that never uses TLS does not load the trust store. Loading it is
+ * blocking I/O, so it runs on a thread of the common pool instead of the caller's, which may be an event loop or a
+ * virtual thread, and no lock is held meanwhile.
+ */
+final class TlsContext {
+    private static final String ENDPOINT_IDENTIFICATION = "HTTPS";
+
+    private final YzClientConfig config;
+    private final AtomicReference<CompletableFuture<Void>> created = new AtomicReference<>();
+    private volatile SslContext http11;
+    private volatile SslContext http2;
+
+    TlsContext(final YzClientConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts creating the contexts unless started before, called before a secure request is handed to a pool.
+     *
+     * @return future completed once both contexts exist, or failed with an {@link IllegalStateException} when they
+     * can not be created
+     */
+    CompletableFuture<Void> init() {
+        final CompletableFuture<Void> existing = created.get();
+        if (existing != null) {
+            return existing;
+        }
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!created.compareAndSet(null, future)) {
+            return created.get();
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                http11 = builder(config)
+                        .applicationProtocolConfig(alpn(ApplicationProtocolNames.HTTP_1_1))
+                        .build();
+                http2 = builder(config)
+                        .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                        .applicationProtocolConfig(alpn(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+                        .build();
+                future.complete(null);
+            } catch (SSLException | RuntimeException e) {
+                future.completeExceptionally(new IllegalStateException("can not create the TLS context", e));
+            }
+        });
+        return future;
+    }
+
+    private static SslContextBuilder builder(final YzClientConfig config) {
+        return SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(config.trustManagerFactory())
+                .sessionCacheSize(config.tlsSessionCacheSize())
+                .sessionTimeout(config.tlsSessionTimeoutSeconds());
+    }
+
+    private static ApplicationProtocolConfig alpn(final String... protocols) {
+        return new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                protocols
+        );
+    }
+
+    /**
+     * @param http2 whether {@code h2} is offered, the negotiated protocol is then
+     *              {@link SslHandler#applicationProtocol()}
+     * @throws IllegalStateException before {@link #init()} completed
+     */
+    SslHandler newHandler(final ByteBufAllocator alloc, final String host, final int port, final boolean http2) {
+        final SslContext context = http2 ? this.http2 : this.http11;
+        if (context == null) {
+            throw new IllegalStateException("TLS context is not created yet");
+        }
+        final SslHandler handler = context.newHandler(alloc, host, port);
+        final SSLEngine engine = handler.engine();
+        final SSLParameters parameters = engine.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm(ENDPOINT_IDENTIFICATION);
+        engine.setSSLParameters(parameters);
+        return handler;
+    }
+}
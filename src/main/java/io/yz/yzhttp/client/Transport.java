@@ -0,0 +1,79 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Netty transport used by {@link YzClient}.
+ */
+public enum Transport {
+    /**
+     * {@link #EPOLL} when the native library can be loaded, {@link #NIO} otherwise.
+     */
+    AUTO,
+    /**
+     * Native epoll transport, Linux only.
+     */
+    EPOLL,
+    /**
+     * JDK NIO transport, available everywhere.
+     */
+    NIO;
+
+    Transport resolve() {
+        switch (this) {
+            case AUTO:
+                return Epoll.isAvailable() ? EPOLL : NIO;
+            case EPOLL:
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("epoll transport is not available", Epoll.unavailabilityCause());
+                }
+                return EPOLL;
+            default:
+                return NIO;
+        }
+    }
+
+    EventLoopGroup newEventLoopGroup(final int threads) {
+        if (resolve() == EPOLL) {
+            return new EpollEventLoopGroup(threads);
+        } else {
+            return new NioEventLoopGroup(threads);
+        }
+    }
+
+    Class<? extends SocketChannel> socketChannelClass() {
+        if (resolve() == EPOLL) {
+            return EpollSocketChannel.class;
+        } else {
+            return NioSocketChannel.class;
+        }
+    }
+
+    Class<? extends ServerSocketChannel> serverSocketChannelClass() {
+        if (resolve() == EPOLL) {
+            return EpollServerSocketChannel.class;
+        } else {
+            return NioServerSocketChannel.class;
+        }
+    }
+
+    Class<? extends DatagramChannel> datagramChannelClass() {
+        if (resolve() == EPOLL) {
+            return EpollDatagramChannel.class;
+        } else {
+            return NioDatagramChannel.class;
+        }
+    }
+}
@@ -1,49 +1,257 @@
 package io.yz.yzhttp.client;
 
 import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
-import io.yz.yzhttp.client.low.HttpObjectHandler;
+import io.yz.yzhttp.constant.HttpVersion;
 
-public class YzClient {
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+public class YzClient implements Closeable {
     private final EventLoopGroup loop;
+    private final ClientMetrics metrics;
+    private final CachingDnsResolver resolver;
+    private final HttpConnectionPool pool;
+    private final HttpConnectionPool tlsPool;
+    private final Http2ConnectionPool http2;
+    private final Http2ConnectionPool tlsHttp2;
+    private final ConcurrencyLimiter limiter;
+    private final TlsContext tls;
 
     public YzClient() {
-        loop = new NioEventLoopGroup();
+        this(YzClientConfig.defaults());
     }
 
-    public void makeRequest(final HttpRequest httpRequest) {
-        new Bootstrap()
+    public YzClient(final YzClientConfig config) {
+        loop = config.transport().newEventLoopGroup(config.ioThreads());
+        metrics = new ClientMetrics();
+        final MetricsListener listener = metrics.andThen(config.metricsListener());
+        resolver = new CachingDnsResolver(loop.next(), config, listener);
+        final Bootstrap bootstrap = bootstrap(loop, config).resolver(resolver.group());
+        tls = new TlsContext(config);
+        // an unanswered pipelined request is retried on a connection of its own
+        pool = new HttpConnectionPool(bootstrap, config, null, exchange -> sendHttp11(exchange, false), listener);
+        tlsPool = new HttpConnectionPool(bootstrap, config, tls, exchange -> sendHttp11(exchange, false), listener);
+        http2 = new Http2ConnectionPool(bootstrap, config, null, null, listener);
+        tlsHttp2 = new Http2ConnectionPool(bootstrap, config, tls, exchange -> sendHttp11(exchange, false), listener);
+        limiter = config.adaptiveConcurrency() ? new ConcurrencyLimiter(loop, config) : null;
+    }
+
+    static Bootstrap bootstrap(final EventLoopGroup loop, final YzClientConfig config) {
+        final Transport transport = config.transport().resolve();
+
+        final Bootstrap bootstrap = new Bootstrap()
                 .group(loop)
-                .channel(NioSocketChannel.class)
-                .handler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    protected void initChannel(SocketChannel socketChannel) throws Exception {
-                        final ChannelPipeline pipeline = socketChannel.pipeline();
+                .channel(transport.socketChannelClass())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.connectTimeoutMillis())
+                .option(ChannelOption.TCP_NODELAY, config.tcpNoDelay())
+                .option(ChannelOption.SO_KEEPALIVE, config.soKeepAlive())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                        new WriteBufferWaterMark(config.writeBufferLowWaterMark(), config.writeBufferHighWaterMark()));
 
-                        pipeline.addLast(new HttpObjectHandler());
-                    }
-                })
-                .connect(httpRequest.host(), httpRequest.port())
-                .addListener((GenericFutureListener<ChannelFuture>) channelFuture -> {
-                    if (channelFuture.isSuccess()) {
-                        System.out.println("Success");
+        if (config.soRcvBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, config.soRcvBuf());
+        }
+        if (config.soSndBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, config.soSndBuf());
+        }
+        if (config.tcpFastOpenConnect() && transport == Transport.EPOLL) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+
+        return bootstrap;
+    }
+
+    /**
+     * Sends {@code httpRequest} on a pooled connection without blocking. An {@link HttpVersion#HTTP_2_0} request is
+     * sent as a stream on a shared HTTP/2 connection, see {@link YzClientConfig#h2cUpgrade()}. A
+     * {@linkplain HttpRequest#secure() secure} one negotiates HTTP/2 by ALPN and falls back to HTTP/1.1 when the server
+     * does not offer it.
+     *
+     * @return future completed on the connection's event loop once the whole response has been read, or failed when
+     * no connection could be acquired or the connection broke before the response ended, or with a
+     * {@link ConcurrencyLimitException} when the {@linkplain YzClientConfig#adaptiveConcurrency() limit} turned it away
+     */
+    public CompletableFuture<HttpResponse> sendAsync(final HttpRequest httpRequest) {
+        Objects.requireNonNull(httpRequest, "httpRequest can not be null");
+
+        final AggregatingExchange exchange = new AggregatingExchange(httpRequest);
+        send(exchange, httpRequest.method().isIdempotent());
+        return exchange.future();
+    }
+
+    /**
+     * Like {@link #sendAsync(HttpRequest)}, with dependent stages handed off to {@code executor} instead of running
+     * on the event loop.
+     */
+    public CompletableFuture<HttpResponse> sendAsync(final HttpRequest httpRequest, final Executor executor) {
+        Objects.requireNonNull(executor, "executor can not be null");
+
+        return sendAsync(httpRequest).whenCompleteAsync((response, cause) -> {
+        }, executor);
+    }
+
+    /**
+     * Sends {@code httpRequest} like {@link #sendAsync(HttpRequest)} and blocks until the whole response has been read.
+     * <p>
+     * The caller parks on the response's {@link CompletableFuture} without holding a monitor, so on JDK 21 and later a
+     * virtual thread waiting here unmounts from its carrier and any number of them can wait at once. Must not be called
+     * on one of the client's event loops, which would then never read the response.
+     *
+     * @throws IOException          when {@link #sendAsync(HttpRequest)} fails, with the failure as its cause
+     * @throws InterruptedException when interrupted while waiting, the response is then discarded once it arrives
+     */
+    public HttpResponse send(final HttpRequest httpRequest) throws IOException, InterruptedException {
+        Objects.requireNonNull(httpRequest, "httpRequest can not be null");
+        for (EventExecutor executor : loop) {
+            if (executor.inEventLoop()) {
+                throw new IllegalStateException("send would block an event loop, use sendAsync");
+            }
+        }
+
+        final CompletableFuture<HttpResponse> future = sendAsync(httpRequest);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Sends {@code httpRequest} and streams the response's message-body instead of aggregating it.
+     * <p>
+     * Nothing is pipelined onto the connection from this request on, so a slow subscriber only holds back its own
+     * response.
+     *
+     * @return future completed on the connection's event loop once the status-line and header fields have been read
+     */
+    public CompletableFuture<StreamingHttpResponse> sendStreaming(final HttpRequest httpRequest) {
+        Objects.requireNonNull(httpRequest, "httpRequest can not be null");
+
+        final StreamingExchange exchange = new StreamingExchange(httpRequest);
+        send(exchange, false);
+        return exchange.future();
+    }
 
-                        final Channel channel = channelFuture.channel();
-                        channel.writeAndFlush(httpRequest.cache())
-                                .addListener((GenericFutureListener<ChannelPromise>) channelPromise -> {
-                                    if (channelPromise.isSuccess()) {
-                                        System.out.println("Write Success");
+    /**
+     * Sends {@code httpRequest} and writes the response's message-body into {@code target} as it arrives, whatever
+     * the status code. The file is created or truncated once the head has been read.
+     *
+     * @return future completed once the whole body is in the file, with an empty message-body
+     */
+    public CompletableFuture<HttpResponse> download(final HttpRequest httpRequest, final Path target) {
+        return download(httpRequest, target, DownloadMode.WRITE);
+    }
+
+    public CompletableFuture<HttpResponse> download(final HttpRequest httpRequest, final Path target, final DownloadMode mode) {
+        Objects.requireNonNull(httpRequest, "httpRequest can not be null");
+        Objects.requireNonNull(target, "target can not be null");
+        Objects.requireNonNull(mode, "mode can not be null");
+
+        final FileExchange exchange = new FileExchange(httpRequest, target, mode);
+        send(exchange, httpRequest.method().isIdempotent());
+        return exchange.future();
+    }
+
+    private void send(final HttpExchange exchange, final boolean pipelined) {
+        if (limiter != null) {
+            limiter.send(exchange, () -> dispatch(exchange, pipelined));
+        } else {
+            dispatch(exchange, pipelined);
+        }
+    }
+
+    private void dispatch(final HttpExchange exchange, final boolean pipelined) {
+        final HttpRequest httpRequest = exchange.request();
+        if (httpRequest.secure()) {
+            final CompletableFuture<Void> created = tls.init();
+            if (!created.isDone()) {
+                // the first secure requests carry on from the thread creating the TLS contexts
+                created.whenComplete((ignored, cause) -> dispatch(exchange, pipelined));
+                return;
+            }
+            if (created.isCompletedExceptionally()) {
+                exchange.fail(created.handle((ignored, cause) -> cause).join());
+                return;
+            }
+        }
+        if (httpRequest.version() == HttpVersion.HTTP_2_0) {
+            (httpRequest.secure() ? tlsHttp2 : http2).send(exchange);
+        } else {
+            sendHttp11(exchange, pipelined);
+        }
+    }
+
+    private void sendHttp11(final HttpExchange exchange, final boolean pipelined) {
+        final HttpRequest httpRequest = exchange.request();
+        (httpRequest.secure() ? tlsPool : pool).acquire(httpRequest.host(), httpRequest.port(), pipelined)
+                .addListener((GenericFutureListener<Future<Channel>>) channelFuture -> {
+                    if (channelFuture.isSuccess()) {
+                        channelFuture.getNow().writeAndFlush(exchange)
+                                .addListener((GenericFutureListener<ChannelFuture>) writeFuture -> {
+                                    if (writeFuture.isSuccess()) {
+                                        return;
+                                    }
+                                    // closed before the exchange got to the connection's handler
+                                    if (!writeFuture.channel().isActive() && exchange.retry()) {
+                                        sendHttp11(exchange, false);
                                     } else {
-                                        System.out.println("Write Failed");
+                                        exchange.fail(writeFuture.cause());
                                     }
                                 });
                     } else {
-                        System.out.println("Failed");
+                        exchange.fail(channelFuture.cause());
                     }
                 });
     }
+
+    /**
+     * @return latencies and counters by host, recorded since the client was created
+     */
+    public ClientMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @deprecated use {@link #sendAsync(HttpRequest)}
+     */
+    @Deprecated
+    public void makeRequest(final HttpRequest httpRequest) {
+        sendAsync(httpRequest);
+    }
+
+    /**
+     * @return current adaptive concurrency limit of {@code host:port}, 0 when it is disabled or nothing was sent there
+     */
+    int concurrencyLimit(final String host, final int port) {
+        return limiter == null ? 0 : limiter.limit(host, port);
+    }
+
+    @Override
+    public void close() {
+        if (limiter != null) {
+            limiter.close();
+        }
+        pool.close();
+        tlsPool.close();
+        http2.close();
+        tlsHttp2.close();
+        resolver.close();
+        loop.shutdownGracefully();
+    }
 }
@@ -0,0 +1,550 @@
+package io.yz.yzhttp.client;
+
+import io.netty.resolver.HostsFileEntriesResolver;
+
+import javax.net.ssl.TrustManagerFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Transport, pool and socket settings of a {@link YzClient}.
+ */
+public final class YzClientConfig {
+    private final Transport transport;
+    private final int ioThreads;
+    private final int maxConnectionsPerHost;
+    private final int maxPendingRequestsPerHost;
+    private final int maxPipelineDepth;
+    private final int connectTimeoutMillis;
+    private final boolean tcpNoDelay;
+    private final boolean soKeepAlive;
+    private final int soRcvBuf;
+    private final int soSndBuf;
+    private final boolean tcpFastOpenConnect;
+    private final int writeBufferLowWaterMark;
+    private final int writeBufferHighWaterMark;
+    private final boolean decompression;
+    private final List<InetSocketAddress> dnsServers;
+    private final HostsFileEntriesResolver hostsFileEntriesResolver;
+    private final int dnsMinTtlSeconds;
+    private final int dnsMaxTtlSeconds;
+    private final int dnsNegativeTtlSeconds;
+    private final int http2MaxConcurrentStreams;
+    private final int http2StreamWindowSize;
+    private final int http2ConnectionWindowSize;
+    private final boolean h2cUpgrade;
+    private final TrustManagerFactory trustManagerFactory;
+    private final int tlsSessionCacheSize;
+    private final int tlsSessionTimeoutSeconds;
+    private final MetricsListener metricsListener;
+    private final boolean adaptiveConcurrency;
+    private final int initialConcurrencyLimit;
+    private final int minConcurrencyLimit;
+    private final int maxConcurrencyLimit;
+    private final LimitPolicy limitPolicy;
+
+    private YzClientConfig(final Builder builder) {
+        this.transport = builder.transport;
+        this.ioThreads = builder.ioThreads;
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        this.maxPendingRequestsPerHost = builder.maxPendingRequestsPerHost;
+        this.maxPipelineDepth = builder.maxPipelineDepth;
+        this.connectTimeoutMillis = builder.connectTimeoutMillis;
+        this.tcpNoDelay = builder.tcpNoDelay;
+        this.soKeepAlive = builder.soKeepAlive;
+        this.soRcvBuf = builder.soRcvBuf;
+        this.soSndBuf = builder.soSndBuf;
+        this.tcpFastOpenConnect = builder.tcpFastOpenConnect;
+        this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+        this.decompression = builder.decompression;
+        this.dnsServers = Collections.unmodifiableList(new ArrayList<>(builder.dnsServers));
+        this.hostsFileEntriesResolver = builder.hostsFileEntriesResolver;
+        this.dnsMinTtlSeconds = builder.dnsMinTtlSeconds;
+        this.dnsMaxTtlSeconds = builder.dnsMaxTtlSeconds;
+        this.dnsNegativeTtlSeconds = builder.dnsNegativeTtlSeconds;
+        this.http2MaxConcurrentStreams = builder.http2MaxConcurrentStreams;
+        this.http2StreamWindowSize = builder.http2StreamWindowSize;
+        this.http2ConnectionWindowSize = builder.http2ConnectionWindowSize;
+        this.h2cUpgrade = builder.h2cUpgrade;
+        this.trustManagerFactory = builder.trustManagerFactory;
+        this.tlsSessionCacheSize = builder.tlsSessionCacheSize;
+        this.tlsSessionTimeoutSeconds = builder.tlsSessionTimeoutSeconds;
+        this.metricsListener = builder.metricsListener;
+        this.adaptiveConcurrency = builder.adaptiveConcurrency;
+        this.initialConcurrencyLimit = builder.initialConcurrencyLimit;
+        this.minConcurrencyLimit = builder.minConcurrencyLimit;
+        this.maxConcurrencyLimit = builder.maxConcurrencyLimit;
+        this.limitPolicy = builder.limitPolicy;
+    }
+
+    public Transport transport() {
+        return transport;
+    }
+
+    /**
+     * @return event loop threads, 0 means netty's default
+     */
+    public int ioThreads() {
+        return ioThreads;
+    }
+
+    public int maxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public int maxPendingRequestsPerHost() {
+        return maxPendingRequestsPerHost;
+    }
+
+    /**
+     * HTTP/1.1 pipelining of idempotent requests is enabled when this is above 1.
+     *
+     * @return max requests in flight on one connection
+     */
+    public int maxPipelineDepth() {
+        return maxPipelineDepth;
+    }
+
+    public int connectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public boolean tcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public boolean soKeepAlive() {
+        return soKeepAlive;
+    }
+
+    /**
+     * @return SO_RCVBUF in bytes, 0 means the system default
+     */
+    public int soRcvBuf() {
+        return soRcvBuf;
+    }
+
+    /**
+     * @return SO_SNDBUF in bytes, 0 means the system default
+     */
+    public int soSndBuf() {
+        return soSndBuf;
+    }
+
+    /**
+     * TCP_FASTOPEN_CONNECT only takes effect on the {@link Transport#EPOLL} transport.
+     *
+     * @return true or false
+     */
+    public boolean tcpFastOpenConnect() {
+        return tcpFastOpenConnect;
+    }
+
+    public int writeBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int writeBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    /**
+     * Whether requests ask for {@code gzip, deflate} and responses are decoded by
+     * {@link io.yz.yzhttp.client.low.HttpContentDecompressor}.
+     *
+     * @return true or false
+     */
+    public boolean decompression() {
+        return decompression;
+    }
+
+    /**
+     * @return name servers queried in order, empty means the ones of {@code /etc/resolv.conf} or the platform
+     */
+    public List<InetSocketAddress> dnsServers() {
+        return dnsServers;
+    }
+
+    /**
+     * Consulted before any name server is queried, its answers are not cached.
+     *
+     * @return hosts file lookup, {@link HostsFileEntriesResolver#DEFAULT} reads the system's hosts file
+     */
+    public HostsFileEntriesResolver hostsFileEntriesResolver() {
+        return hostsFileEntriesResolver;
+    }
+
+    /**
+     * @return lower bound applied to the TTL of resolved addresses
+     */
+    public int dnsMinTtlSeconds() {
+        return dnsMinTtlSeconds;
+    }
+
+    /**
+     * @return upper bound applied to the TTL of resolved addresses
+     */
+    public int dnsMaxTtlSeconds() {
+        return dnsMaxTtlSeconds;
+    }
+
+    /**
+     * @return how long a name that does not resolve keeps failing without a new query, 0 disables negative caching
+     */
+    public int dnsNegativeTtlSeconds() {
+        return dnsNegativeTtlSeconds;
+    }
+
+    /**
+     * The server's SETTINGS_MAX_CONCURRENT_STREAMS lowers it further.
+     *
+     * @return max requests in flight on one HTTP/2 connection
+     */
+    public int http2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    /**
+     * @return bytes of a response a server may send on one HTTP/2 stream before it is read
+     */
+    public int http2StreamWindowSize() {
+        return http2StreamWindowSize;
+    }
+
+    /**
+     * @return bytes of all responses a server may send on one HTTP/2 connection before they are read
+     */
+    public int http2ConnectionWindowSize() {
+        return http2ConnectionWindowSize;
+    }
+
+    /**
+     * Whether an HTTP/2 connection starts with an HTTP/1.1 {@code Upgrade: h2c} request instead of assuming the server
+     * speaks HTTP/2 (prior knowledge).
+     *
+     * @return true or false
+     */
+    public boolean h2cUpgrade() {
+        return h2cUpgrade;
+    }
+
+    /**
+     * @return trust of server certificates, {@code null} means the JDK's default trust store
+     */
+    public TrustManagerFactory trustManagerFactory() {
+        return trustManagerFactory;
+    }
+
+    /**
+     * @return TLS sessions kept for resumption, 0 means the JDK's default
+     */
+    public int tlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    /**
+     * @return how long a TLS session can be resumed, 0 means the JDK's default
+     */
+    public int tlsSessionTimeoutSeconds() {
+        return tlsSessionTimeoutSeconds;
+    }
+
+    /**
+     * @return receiver of everything recorded into {@link YzClient#metrics()}
+     */
+    public MetricsListener metricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Requests in flight to each {@code host:port} are then capped by a limit adapting to the latency and failures
+     * observed there, on top of {@link #maxConnectionsPerHost()}, and the requests beyond it are handled by
+     * {@link #limitPolicy()}.
+     */
+    public boolean adaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public int initialConcurrencyLimit() {
+        return initialConcurrencyLimit;
+    }
+
+    public int minConcurrencyLimit() {
+        return minConcurrencyLimit;
+    }
+
+    public int maxConcurrencyLimit() {
+        return maxConcurrencyLimit;
+    }
+
+    public LimitPolicy limitPolicy() {
+        return limitPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "YzClientConfig{" +
+                "transport=" + transport +
+                ", ioThreads=" + ioThreads +
+                ", maxConnectionsPerHost=" + maxConnectionsPerHost +
+                ", maxPendingRequestsPerHost=" + maxPendingRequestsPerHost +
+                ", maxPipelineDepth=" + maxPipelineDepth +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", tcpNoDelay=" + tcpNoDelay +
+                ", soKeepAlive=" + soKeepAlive +
+                ", soRcvBuf=" + soRcvBuf +
+                ", soSndBuf=" + soSndBuf +
+                ", tcpFastOpenConnect=" + tcpFastOpenConnect +
+                ", writeBufferLowWaterMark=" + writeBufferLowWaterMark +
+                ", writeBufferHighWaterMark=" + writeBufferHighWaterMark +
+                ", decompression=" + decompression +
+                ", dnsServers=" + dnsServers +
+                ", hostsFileEntriesResolver=" + hostsFileEntriesResolver +
+                ", dnsMinTtlSeconds=" + dnsMinTtlSeconds +
+                ", dnsMaxTtlSeconds=" + dnsMaxTtlSeconds +
+                ", dnsNegativeTtlSeconds=" + dnsNegativeTtlSeconds +
+                ", http2MaxConcurrentStreams=" + http2MaxConcurrentStreams +
+                ", http2StreamWindowSize=" + http2StreamWindowSize +
+                ", http2ConnectionWindowSize=" + http2ConnectionWindowSize +
+                ", h2cUpgrade=" + h2cUpgrade +
+                ", trustManagerFactory=" + trustManagerFactory +
+                ", tlsSessionCacheSize=" + tlsSessionCacheSize +
+                ", tlsSessionTimeoutSeconds=" + tlsSessionTimeoutSeconds +
+                ", metricsListener=" + metricsListener +
+                ", adaptiveConcurrency=" + adaptiveConcurrency +
+                ", initialConcurrencyLimit=" + initialConcurrencyLimit +
+                ", minConcurrencyLimit=" + minConcurrencyLimit +
+                ", maxConcurrencyLimit=" + maxConcurrencyLimit +
+                ", limitPolicy=" + limitPolicy +
+                '}';
+    }
+
+    public static YzClientConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private static final int DEFAULT_HTTP2_WINDOW_SIZE = 65535;
+
+        private Transport transport = Transport.AUTO;
+        private int ioThreads = 0;
+        private int maxConnectionsPerHost = 64;
+        private int maxPendingRequestsPerHost = 1024;
+        private int maxPipelineDepth = 1;
+        private int connectTimeoutMillis = 10_000;
+        private boolean tcpNoDelay = true;
+        private boolean soKeepAlive = true;
+        private int soRcvBuf = 0;
+        private int soSndBuf = 0;
+        private boolean tcpFastOpenConnect = false;
+        private int writeBufferLowWaterMark = 32 * 1024;
+        private int writeBufferHighWaterMark = 64 * 1024;
+        private boolean decompression = false;
+        private List<InetSocketAddress> dnsServers = Collections.emptyList();
+        private HostsFileEntriesResolver hostsFileEntriesResolver = HostsFileEntriesResolver.DEFAULT;
+        private int dnsMinTtlSeconds = 0;
+        private int dnsMaxTtlSeconds = 3600;
+        private int dnsNegativeTtlSeconds = 5;
+        private int http2MaxConcurrentStreams = 100;
+        private int http2StreamWindowSize = 1024 * 1024;
+        private int http2ConnectionWindowSize = 16 * 1024 * 1024;
+        private boolean h2cUpgrade = false;
+        private TrustManagerFactory trustManagerFactory = null;
+        private int tlsSessionCacheSize = 0;
+        private int tlsSessionTimeoutSeconds = 0;
+        private MetricsListener metricsListener = MetricsListener.NOOP;
+        private boolean adaptiveConcurrency = false;
+        private int initialConcurrencyLimit = 20;
+        private int minConcurrencyLimit = 1;
+        private int maxConcurrencyLimit = 1000;
+        private LimitPolicy limitPolicy = LimitPolicy.QUEUE;
+
+        private Builder() {
+        }
+
+        public Builder setTransport(final Transport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder setIoThreads(final int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerHost(final int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public Builder setMaxPendingRequestsPerHost(final int maxPendingRequestsPerHost) {
+            this.maxPendingRequestsPerHost = maxPendingRequestsPerHost;
+            return this;
+        }
+
+        public Builder setMaxPipelineDepth(final int maxPipelineDepth) {
+            this.maxPipelineDepth = maxPipelineDepth;
+            return this;
+        }
+
+        public Builder setConnectTimeoutMillis(final int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            return this;
+        }
+
+        public Builder setTcpNoDelay(final boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        public Builder setSoKeepAlive(final boolean soKeepAlive) {
+            this.soKeepAlive = soKeepAlive;
+            return this;
+        }
+
+        public Builder setSoRcvBuf(final int soRcvBuf) {
+            this.soRcvBuf = soRcvBuf;
+            return this;
+        }
+
+        public Builder setSoSndBuf(final int soSndBuf) {
+            this.soSndBuf = soSndBuf;
+            return this;
+        }
+
+        public Builder setTcpFastOpenConnect(final boolean tcpFastOpenConnect) {
+            this.tcpFastOpenConnect = tcpFastOpenConnect;
+            return this;
+        }
+
+        public Builder setWriteBufferWaterMark(final int low, final int high) {
+            this.writeBufferLowWaterMark = low;
+            this.writeBufferHighWaterMark = high;
+            return this;
+        }
+
+        public Builder setDecompression(final boolean decompression) {
+            this.decompression = decompression;
+            return this;
+        }
+
+        public Builder setDnsServers(final List<InetSocketAddress> dnsServers) {
+            this.dnsServers = dnsServers;
+            return this;
+        }
+
+        public Builder setHostsFileEntriesResolver(final HostsFileEntriesResolver hostsFileEntriesResolver) {
+            this.hostsFileEntriesResolver = hostsFileEntriesResolver;
+            return this;
+        }
+
+        public Builder setDnsTtl(final int minTtlSeconds, final int maxTtlSeconds) {
+            this.dnsMinTtlSeconds = minTtlSeconds;
+            this.dnsMaxTtlSeconds = maxTtlSeconds;
+            return this;
+        }
+
+        public Builder setDnsNegativeTtlSeconds(final int dnsNegativeTtlSeconds) {
+            this.dnsNegativeTtlSeconds = dnsNegativeTtlSeconds;
+            return this;
+        }
+
+        public Builder setHttp2MaxConcurrentStreams(final int http2MaxConcurrentStreams) {
+            this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+            return this;
+        }
+
+        public Builder setHttp2WindowSize(final int stream, final int connection) {
+            this.http2StreamWindowSize = stream;
+            this.http2ConnectionWindowSize = connection;
+            return this;
+        }
+
+        public Builder setH2cUpgrade(final boolean h2cUpgrade) {
+            this.h2cUpgrade = h2cUpgrade;
+            return this;
+        }
+
+        public Builder setTrustManagerFactory(final TrustManagerFactory trustManagerFactory) {
+            this.trustManagerFactory = trustManagerFactory;
+            return this;
+        }
+
+        public Builder setTlsSessionCacheSize(final int tlsSessionCacheSize) {
+            this.tlsSessionCacheSize = tlsSessionCacheSize;
+            return this;
+        }
+
+        public Builder setTlsSessionTimeoutSeconds(final int tlsSessionTimeoutSeconds) {
+            this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds;
+            return this;
+        }
+
+        public Builder setMetricsListener(final MetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        public Builder setAdaptiveConcurrency(final boolean adaptiveConcurrency) {
+            this.adaptiveConcurrency = adaptiveConcurrency;
+            return this;
+        }
+
+        public Builder setConcurrencyLimit(final int initial, final int min, final int max) {
+            this.initialConcurrencyLimit = initial;
+            this.minConcurrencyLimit = min;
+            this.maxConcurrencyLimit = max;
+            return this;
+        }
+
+        public Builder setLimitPolicy(final LimitPolicy limitPolicy) {
+            this.limitPolicy = limitPolicy;
+            return this;
+        }
+
+        public YzClientConfig build() {
+            Objects.requireNonNull(transport, "transport can not be null");
+            checkArgument(ioThreads >= 0, "ioThreads must be >= 0");
+            checkArgument(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be > 0");
+            checkArgument(maxPendingRequestsPerHost > 0, "maxPendingRequestsPerHost must be > 0");
+            checkArgument(maxPipelineDepth > 0, "maxPipelineDepth must be > 0");
+            checkArgument(connectTimeoutMillis >= 0, "connectTimeoutMillis must be >= 0");
+            checkArgument(soRcvBuf >= 0, "soRcvBuf must be >= 0");
+            checkArgument(soSndBuf >= 0, "soSndBuf must be >= 0");
+            checkArgument(0 <= writeBufferLowWaterMark && writeBufferLowWaterMark <= writeBufferHighWaterMark,
+                    "writeBufferLowWaterMark must be between 0 and writeBufferHighWaterMark");
+            Objects.requireNonNull(dnsServers, "dnsServers can not be null");
+            Objects.requireNonNull(hostsFileEntriesResolver, "hostsFileEntriesResolver can not be null");
+            checkArgument(0 <= dnsMinTtlSeconds && dnsMinTtlSeconds <= dnsMaxTtlSeconds,
+                    "dnsMinTtlSeconds must be between 0 and dnsMaxTtlSeconds");
+            checkArgument(dnsNegativeTtlSeconds >= 0, "dnsNegativeTtlSeconds must be >= 0");
+            checkArgument(http2MaxConcurrentStreams > 0, "http2MaxConcurrentStreams must be > 0");
+            checkArgument(http2StreamWindowSize >= DEFAULT_HTTP2_WINDOW_SIZE, "http2StreamWindowSize must be >= 65535");
+            checkArgument(http2ConnectionWindowSize >= DEFAULT_HTTP2_WINDOW_SIZE, "http2ConnectionWindowSize must be >= 65535");
+            checkArgument(tlsSessionCacheSize >= 0, "tlsSessionCacheSize must be >= 0");
+            checkArgument(tlsSessionTimeoutSeconds >= 0, "tlsSessionTimeoutSeconds must be >= 0");
+            Objects.requireNonNull(metricsListener, "metricsListener can not be null");
+            checkArgument(0 < minConcurrencyLimit && minConcurrencyLimit <= maxConcurrencyLimit,
+                    "minConcurrencyLimit must be between 1 and maxConcurrencyLimit");
+            checkArgument(minConcurrencyLimit <= initialConcurrencyLimit && initialConcurrencyLimit <= maxConcurrencyLimit,
+                    "initialConcurrencyLimit must be between minConcurrencyLimit and maxConcurrencyLimit");
+            Objects.requireNonNull(limitPolicy, "limitPolicy can not be null");
+
+            return new YzClientConfig(this);
+        }
+
+        private static void checkArgument(final boolean expression, final String message) {
+            if (!expression) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package io.yz.yzhttp.client.low;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.yz.yzhttp.client.HttpHeaderName;
+import io.yz.yzhttp.client.ProtocolParseException;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes {@code gzip} and {@code deflate} message-bodies, placed right after {@link HttpObjectHandler}.
+ * <p>
+ * A response with one of these codings is fired on as a {@link HttpResponseHead} with an unknown content length, its
+ * header fields left as received, followed by the decoded body in pooled heap buffers of at most {@code maxChunk}
+ * bytes each, fired as soon as they are filled. Inflaters come from a per-thread pool and go back to it when the
+ * response ends. Responses with any other coding, or several codings, pass through untouched.
+ * <p>
+ * {@code deflate} is accepted both zlib wrapped, as specified, and raw, as some servers send it.
+ */
+public class HttpContentDecompressor extends ChannelInboundHandlerAdapter {
+    private static final int DEFAULT_MAX_CHUNK = 8192;
+
+    private static final int IDENTITY = 0;
+    private static final int GZIP = 1;
+    private static final int DEFLATE = 2;
+
+    private static final int S_GZIP_HEADER = 0;
+    private static final int S_GZIP_EXTRA_LENGTH = 1;
+    private static final int S_GZIP_EXTRA = 2;
+    private static final int S_GZIP_NAME = 3;
+    private static final int S_GZIP_COMMENT = 4;
+    private static final int S_GZIP_HEADER_CRC = 5;
+    private static final int S_ZLIB_HEADER = 6;
+    private static final int S_BODY = 7;
+    private static final int S_GZIP_TRAILER = 8;
+    private static final int S_DONE = 9;
+
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+
+    private final int maxChunk;
+    private final CRC32 crc = new CRC32();
+    /**
+     * gzip header and trailer bytes, or the first two bytes of a deflate body.
+     */
+    private final byte[] scratch = new byte[10];
+    /**
+     * Heap copy of direct input, {@link Inflater} only reads arrays.
+     */
+    private byte[] input;
+
+    private int coding = IDENTITY;
+    private int state;
+    private int flags;
+    private int have;
+    private int skip;
+    private boolean started;
+
+    private Inflater inflater;
+    private boolean nowrap;
+
+    public HttpContentDecompressor() {
+        this(DEFAULT_MAX_CHUNK);
+    }
+
+    /**
+     * @param maxChunk size of the buffers the decoded body is fired in
+     */
+    public HttpContentDecompressor(final int maxChunk) {
+        if (maxChunk <= 0) {
+            throw new IllegalArgumentException("maxChunk must be positive");
+        }
+        this.maxChunk = maxChunk;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpResponseHead) {
+            final HttpResponseHead head = (HttpResponseHead) msg;
+            coding = coding(head.httpHeader().getHeader(HttpHeaderName.CONTENT_ENCODING).orElse(null));
+            if (coding == IDENTITY) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+
+            state = coding == GZIP ? S_GZIP_HEADER : S_ZLIB_HEADER;
+            ctx.fireChannelRead(new HttpResponseHead(
+                    head.httpVersion(),
+                    head.statusCode(),
+                    head.reasonPhrase(),
+                    head.httpHeader(),
+                    -1
+            ));
+        } else if (msg instanceof ByteBuf && coding != IDENTITY) {
+            final ByteBuf in = (ByteBuf) msg;
+            try {
+                started |= in.isReadable();
+                decode(ctx, in);
+            } catch (DataFormatException e) {
+                throw new ProtocolParseException(e);
+            } finally {
+                in.release();
+            }
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof HttpResponseEndEvent && coding != IDENTITY) {
+            final boolean truncated = started && state != S_DONE;
+            reset();
+            if (truncated) {
+                throw new ProtocolParseException(new DataFormatException("compressed message-body is truncated"));
+            }
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        reset();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        ctx.fireChannelInactive();
+    }
+
+    private static int coding(final String contentEncoding) {
+        if (contentEncoding == null) {
+            return IDENTITY;
+        }
+        final String trimmed = contentEncoding.trim();
+        if ("gzip".equalsIgnoreCase(trimmed) || "x-gzip".equalsIgnoreCase(trimmed)) {
+            return GZIP;
+        }
+        if ("deflate".equalsIgnoreCase(trimmed)) {
+            return DEFLATE;
+        }
+        return IDENTITY;
+    }
+
+    private void decode(final ChannelHandlerContext ctx, final ByteBuf in) throws DataFormatException {
+        while (in.isReadable()) {
+            switch (state) {
+                case S_GZIP_HEADER:
+                    if (!fill(in, 10)) {
+                        return;
+                    }
+                    if ((scratch[0] & 0xFF) != 0x1F || (scratch[1] & 0xFF) != 0x8B || scratch[2] != 8) {
+                        throw new DataFormatException("not a gzip stream");
+                    }
+                    flags = scratch[3];
+                    state = S_GZIP_EXTRA_LENGTH;
+                    break;
+                case S_GZIP_EXTRA_LENGTH:
+                    if ((flags & FEXTRA) == 0) {
+                        state = S_GZIP_NAME;
+                        break;
+                    }
+                    if (!fill(in, 2)) {
+                        return;
+                    }
+                    skip = (scratch[0] & 0xFF) | (scratch[1] & 0xFF) << 8;
+                    state = S_GZIP_EXTRA;
+                    break;
+                case S_GZIP_EXTRA: {
+                    final int n = Math.min(skip, in.readableBytes());
+                    in.skipBytes(n);
+                    skip -= n;
+                    if (skip > 0) {
+                        return;
+                    }
+                    state = S_GZIP_NAME;
+                    break;
+                }
+                case S_GZIP_NAME:
+                    if ((flags & FNAME) != 0 && !skipZeroTerminated(in)) {
+                        return;
+                    }
+                    state = S_GZIP_COMMENT;
+                    break;
+                case S_GZIP_COMMENT:
+                    if ((flags & FCOMMENT) != 0 && !skipZeroTerminated(in)) {
+                        return;
+                    }
+                    state = S_GZIP_HEADER_CRC;
+                    break;
+                case S_GZIP_HEADER_CRC:
+                    if ((flags & FHCRC) != 0 && !fill(in, 2)) {
+                        return;
+                    }
+                    nowrap = true;
+                    inflater = InflaterPool.acquire(true);
+                    state = S_BODY;
+                    break;
+                case S_ZLIB_HEADER: {
+                    if (!fill(in, 2)) {
+                        return;
+                    }
+                    final int cmf = scratch[0] & 0xFF;
+                    final int flg = scratch[1] & 0xFF;
+                    nowrap = (cmf & 0x0F) != 8 || (cmf << 8 | flg) % 31 != 0;
+                    inflater = InflaterPool.acquire(nowrap);
+                    state = S_BODY;
+                    inflate(ctx, scratch, 0, 2);
+                    break;
+                }
+                case S_BODY:
+                    inflate(ctx, in);
+                    break;
+                case S_GZIP_TRAILER: {
+                    if (!fill(in, 8)) {
+                        return;
+                    }
+                    final long expectedCrc = readIntLE(0) & 0xFFFFFFFFL;
+                    final long expectedSize = readIntLE(4) & 0xFFFFFFFFL;
+                    if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+                        throw new DataFormatException("gzip trailer does not match the decoded body");
+                    }
+                    state = S_DONE;
+                    break;
+                }
+                default:
+                    // bytes after the end of the stream
+                    in.skipBytes(in.readableBytes());
+                    return;
+            }
+        }
+    }
+
+    private void inflate(final ChannelHandlerContext ctx, final ByteBuf in) throws DataFormatException {
+        if (in.hasArray()) {
+            final int length = in.readableBytes();
+            final int remaining = inflate(ctx, in.array(), in.arrayOffset() + in.readerIndex(), length);
+            in.skipBytes(length - remaining);
+            return;
+        }
+
+        if (input == null) {
+            input = new byte[maxChunk];
+        }
+        final int length = Math.min(in.readableBytes(), input.length);
+        in.getBytes(in.readerIndex(), input, 0, length);
+        final int remaining = inflate(ctx, input, 0, length);
+        in.skipBytes(length - remaining);
+    }
+
+    /**
+     * @return input bytes left over once the deflate stream finished, 0 otherwise
+     */
+    private int inflate(final ChannelHandlerContext ctx, final byte[] array, final int offset, final int length)
+            throws DataFormatException {
+        inflater.setInput(array, offset, length);
+        for (; ; ) {
+            final ByteBuf out = ctx.alloc().heapBuffer(maxChunk, maxChunk);
+            final int n;
+            try {
+                n = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                if (n > 0 && coding == GZIP) {
+                    crc.update(out.array(), out.arrayOffset() + out.writerIndex(), n);
+                }
+            } catch (DataFormatException e) {
+                out.release();
+                throw e;
+            }
+
+            if (n > 0) {
+                out.writerIndex(out.writerIndex() + n);
+                ctx.fireChannelRead(out);
+            } else {
+                out.release();
+            }
+
+            if (inflater.finished()) {
+                state = coding == GZIP ? S_GZIP_TRAILER : S_DONE;
+                return inflater.getRemaining();
+            }
+            if (inflater.needsInput()) {
+                return 0;
+            }
+            if (n == 0 && inflater.needsDictionary()) {
+                throw new DataFormatException("preset dictionaries are not supported");
+            }
+        }
+    }
+
+    /**
+     * Collects {@code length} bytes into {@link #scratch} across reads.
+     */
+    private boolean fill(final ByteBuf in, final int length) {
+        final int n = Math.min(length - have, in.readableBytes());
+        in.readBytes(scratch, have, n);
+        have += n;
+        if (have < length) {
+            return false;
+        }
+        have = 0;
+        return true;
+    }
+
+    private static boolean skipZeroTerminated(final ByteBuf in) {
+        final int i = in.bytesBefore((byte) 0);
+        if (i < 0) {
+            in.skipBytes(in.readableBytes());
+            return false;
+        }
+        in.skipBytes(i + 1);
+        return true;
+    }
+
+    private int readIntLE(final int offset) {
+        return (scratch[offset] & 0xFF)
+                | (scratch[offset + 1] & 0xFF) << 8
+                | (scratch[offset + 2] & 0xFF) << 16
+                | (scratch[offset + 3] & 0xFF) << 24;
+    }
+
+    private void reset() {
+        if (inflater != null) {
+            InflaterPool.release(inflater, nowrap);
+            inflater = null;
+        }
+        crc.reset();
+        coding = IDENTITY;
+        state = S_GZIP_HEADER;
+        have = 0;
+        skip = 0;
+        started = false;
+    }
+}
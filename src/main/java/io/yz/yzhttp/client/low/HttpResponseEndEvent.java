@@ -0,0 +1,15 @@
+package io.yz.yzhttp.client.low;
+
+/**
+ * User event fired by {@link HttpObjectHandler} once a whole response has been read.
+ */
+public enum HttpResponseEndEvent {
+    /**
+     * The connection can be reused for the next request.
+     */
+    KEEP_ALIVE,
+    /**
+     * The connection must not be reused.
+     */
+    CLOSE,
+}
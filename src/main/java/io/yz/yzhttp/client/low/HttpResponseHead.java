@@ -0,0 +1,64 @@
+package io.yz.yzhttp.client.low;
+
+import io.yz.yzhttp.client.HttpHeader;
+import io.yz.yzhttp.constant.HttpVersion;
+
+/**
+ * status-line and header fields of a response, fired by {@link HttpObjectHandler} before the message-body.
+ * <p>
+ * The message-body follows as {@link io.netty.buffer.ByteBuf} slices, then the {@link HttpResponseTrailer} of a chunked
+ * response if it has trailer fields, and the response ends with a {@link HttpResponseEndEvent}.
+ */
+public final class HttpResponseHead {
+    private final HttpVersion httpVersion;
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final HttpHeader httpHeader;
+    private final long contentLength;
+
+    public HttpResponseHead(final HttpVersion httpVersion,
+                            final int statusCode,
+                            final String reasonPhrase,
+                            final HttpHeader httpHeader,
+                            final long contentLength) {
+        this.httpVersion = httpVersion;
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.httpHeader = httpHeader;
+        this.contentLength = contentLength;
+    }
+
+    public HttpVersion httpVersion() {
+        return httpVersion;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public String reasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public HttpHeader httpHeader() {
+        return httpHeader;
+    }
+
+    /**
+     * @return length of the message-body, or -1 if it is not known up front
+     */
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponseHead{" +
+                "httpVersion=" + httpVersion +
+                ", statusCode=" + statusCode +
+                ", reasonPhrase='" + reasonPhrase + '\'' +
+                ", httpHeader=" + httpHeader +
+                ", contentLength=" + contentLength +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package io.yz.yzhttp.client.low;
+
+/**
+ * User event fired by {@link HttpObjectHandler} when the first byte of a response is read, before its
+ * {@link HttpResponseHead}.
+ */
+public final class HttpResponseStartEvent {
+    public static final HttpResponseStartEvent INSTANCE = new HttpResponseStartEvent();
+
+    private HttpResponseStartEvent() {
+    }
+}
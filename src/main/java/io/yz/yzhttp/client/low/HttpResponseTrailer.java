@@ -0,0 +1,26 @@
+package io.yz.yzhttp.client.low;
+
+import io.yz.yzhttp.client.HttpHeader;
+
+/**
+ * trailer-part of a chunked response, fired by {@link HttpObjectHandler} after the last chunk when the response
+ * carries trailer fields.
+ */
+public final class HttpResponseTrailer {
+    private final HttpHeader httpHeader;
+
+    public HttpResponseTrailer(final HttpHeader httpHeader) {
+        this.httpHeader = httpHeader;
+    }
+
+    public HttpHeader httpHeader() {
+        return httpHeader;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponseTrailer{" +
+                "httpHeader=" + httpHeader +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package io.yz.yzhttp.client.low;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayDeque;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Inflater}s kept per thread, so an event loop reuses the same few native inflaters across responses instead
+ * of creating and ending one per response.
+ */
+final class InflaterPool {
+    private static final int MAX_POOLED = 16;
+
+    private static final FastThreadLocal<ArrayDeque<Inflater>> RAW = new FastThreadLocal<ArrayDeque<Inflater>>() {
+        @Override
+        protected ArrayDeque<Inflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+
+        @Override
+        protected void onRemoval(ArrayDeque<Inflater> value) {
+            value.forEach(Inflater::end);
+        }
+    };
+    private static final FastThreadLocal<ArrayDeque<Inflater>> ZLIB = new FastThreadLocal<ArrayDeque<Inflater>>() {
+        @Override
+        protected ArrayDeque<Inflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+
+        @Override
+        protected void onRemoval(ArrayDeque<Inflater> value) {
+            value.forEach(Inflater::end);
+        }
+    };
+
+    private InflaterPool() {
+    }
+
+    /**
+     * @param nowrap {@code true} for a raw deflate stream, {@code false} for a zlib wrapped one
+     */
+    static Inflater acquire(final boolean nowrap) {
+        final Inflater inflater = (nowrap ? RAW : ZLIB).get().poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Must be called on the thread that acquired {@code inflater}, with the same {@code nowrap}.
+     */
+    static void release(final Inflater inflater, final boolean nowrap) {
+        final ArrayDeque<Inflater> pool = (nowrap ? RAW : ZLIB).get();
+        if (pool.size() < MAX_POOLED) {
+            inflater.reset();
+            pool.push(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -4,13 +4,29 @@ package io.yz.yzhttp.constant;
  * @author yz
  */
 public enum HttpMethod {
-    GET,
-    HEAD,
-    POST,
-    PUT,
-    DELETE,
-    CONNECT,
-    OPTIONS,
-    TRACE,
-    PATCH,
+    GET(true),
+    HEAD(true),
+    POST(false),
+    PUT(true),
+    DELETE(true),
+    CONNECT(false),
+    OPTIONS(true),
+    TRACE(true),
+    PATCH(false),
+    ;
+
+    private final boolean idempotent;
+
+    HttpMethod(final boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Idempotent methods, RFC 7231 section 4.2.2. Only these may be pipelined.
+     *
+     * @return true or false
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
 }
@@ -0,0 +1,426 @@
+package io.yz.yzhttp.parser;
+
+import io.netty.buffer.ByteBuf;
+import io.yz.yzhttp.client.HttpHeader;
+import io.yz.yzhttp.client.HttpHeaderName;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+
+
+/**
+ * token = 1*tchar
+ * obs-fold = CRLF 1*( SP / HTAB ); obsolete line folding
+ * <p>
+ * HTTP-message = start-line *( header-field CRLF ) CRLF [ message-body ]
+ * start-line = request-line / status-line
+ * status-line = HTTP-version SP status-code SP reason-phrase CRLF
+ * HTTP-name = %x48.54.54.50; "HTTP", case-sensitive
+ * HTTP-version = HTTP-name "/" DIGIT "." DIGIT
+ * status-code = 3DIGIT
+ * reason-phrase = *( HTAB / SP / VCHAR / obs-text )
+ * <p>
+ * header-field = field-name ":" OWS field-value OWS
+ * field-name = token
+ * field-value = *( field-content / obs-fold )
+ * field-content = field-vchar [ 1*( SP / HTAB ) field-vchar ]
+ * field-vchar = VCHAR / obs-text
+ * <p>
+ * header-field = 1*tchar ":" OWS *( field-content / obs-fold ) OWS
+ * ( VCHAR / obs-text ) [ 1*( SP / HTAB ) ( VCHAR / obs-text ) ]
+ * <p>
+ * Resumable response parser composed of the phase parsers of this package. Every call to {@link #parse(ByteBuf)}
+ * consumes bytes until something happened, which is returned as an {@link Event}, or until the buffer is drained,
+ * which is {@link Event#NEED_MORE}. The parser is reused for every response on a connection and allocates nothing
+ * per byte; the message-body is handed out as retained slices of the buffer being parsed.
+ */
+public class HttpResponseParser {
+    public enum Event {
+        /**
+         * The buffer is drained.
+         */
+        NEED_MORE,
+        /**
+         * status-line and header section are parsed, see {@link #httpVersion()}, {@link #statusCode()},
+         * {@link #reasonPhrase()}, {@link #header()} and {@link #contentLength()}.
+         */
+        HEAD,
+        /**
+         * A piece of the message-body is available from {@link #content()}.
+         */
+        CONTENT,
+        /**
+         * The trailer-part of a chunked body is available from {@link #trailer()}.
+         */
+        TRAILER,
+        /**
+         * The response is complete, see {@link #keepAlive()}.
+         */
+        END,
+    }
+
+    /**
+     * message-body is delimited by closing the connection
+     */
+    public static final long UNTIL_CLOSE = -1;
+
+    private static final byte CR = 0x0D;
+    private static final byte LF = 0x0A;
+    private static final byte SP = 0x20;
+
+    private final HttpVersionParser httpVersionParser = new HttpVersionParser();
+    private final StatusCodeParser statusCodeParser = new StatusCodeParser();
+    private final ReasonPhraseParser reasonPhraseParser = new ReasonPhraseParser();
+    private final HeaderFieldsParser headerFieldsParser = new HeaderFieldsParser();
+    private final ChunkSizeParser chunkSizeParser = new ChunkSizeParser();
+
+    private final int maxHeadSize;
+
+    private Phase main;
+    private int headSize;
+    private HttpMethod requestMethod;
+
+    private HttpVersion httpVersion;
+    private int statusCode;
+    private String reasonPhrase;
+    private HttpHeader header;
+    private HttpHeader trailer;
+    private long contentLength;
+    private boolean chunked;
+    private boolean keepAlive;
+    private long remaining;
+    private ByteBuf content;
+
+    public HttpResponseParser() {
+        this(64 * 1024);
+    }
+
+    /**
+     * @param maxHeadSize max bytes of a status-line plus header section, or of a trailer-part
+     */
+    public HttpResponseParser(final int maxHeadSize) {
+        this.maxHeadSize = maxHeadSize;
+        this.main = Phase.P_HTTP_VERSION;
+    }
+
+    /**
+     * The method of the request the next response answers, a response to HEAD has no message-body.
+     *
+     * @param requestMethod method, null if unknown
+     */
+    public void requestMethod(final HttpMethod requestMethod) {
+        this.requestMethod = requestMethod;
+    }
+
+    public Event parse(final ByteBuf buffer) {
+        for (; ; ) {
+            switch (main) {
+                case P_HTTP_VERSION:
+                    head(httpVersionParser.feed(buffer));
+                    if (!httpVersionParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    httpVersion = httpVersionParser.getResult();
+                    main = Phase.P_HTTP_VERSION_SP;
+                    break;
+                case P_HTTP_VERSION_SP:
+                    if (!expect(buffer, SP, Phase.P_STATUS_CODE)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_STATUS_CODE:
+                    head(statusCodeParser.feed(buffer));
+                    if (!statusCodeParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    statusCode = statusCodeParser.getResult();
+                    main = Phase.P_STATUS_CODE_SP;
+                    break;
+                case P_STATUS_CODE_SP:
+                    if (!expect(buffer, SP, Phase.P_REASON_PHRASE)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_REASON_PHRASE:
+                    head(reasonPhraseParser.feed(buffer));
+                    if (!reasonPhraseParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    reasonPhrase = reasonPhraseParser.getResult();
+                    main = Phase.P_STATUS_LINE_CR;
+                    break;
+                case P_STATUS_LINE_CR:
+                    if (!expect(buffer, CR, Phase.P_STATUS_LINE_LF)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_STATUS_LINE_LF:
+                    if (!expect(buffer, LF, Phase.P_HEADER_FIELDS)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_HEADER_FIELDS:
+                    head(headerFieldsParser.feed(buffer));
+                    if (!headerFieldsParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    header = headerFieldsParser.getResult();
+                    if (onHead()) {
+                        return Event.HEAD;
+                    }
+                    break;
+                case P_BODY:
+                    if (remaining == 0) {
+                        main = Phase.P_END;
+                        break;
+                    }
+                    if (!buffer.isReadable()) {
+                        return Event.NEED_MORE;
+                    }
+                    content = readContent(buffer);
+                    return Event.CONTENT;
+                case P_CHUNK_SIZE:
+                    chunkSizeParser.feed(buffer);
+                    if (!chunkSizeParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    remaining = chunkSizeParser.getResult();
+                    chunkSizeParser.reset();
+                    if (remaining == 0) {
+                        headSize = 0;
+                        headerFieldsParser.reset();
+                        main = Phase.P_TRAILER_FIELDS;
+                    } else {
+                        main = Phase.P_CHUNK_DATA;
+                    }
+                    break;
+                case P_CHUNK_DATA:
+                    if (remaining == 0) {
+                        main = Phase.P_CHUNK_DATA_CR;
+                        break;
+                    }
+                    if (!buffer.isReadable()) {
+                        return Event.NEED_MORE;
+                    }
+                    content = readContent(buffer);
+                    return Event.CONTENT;
+                case P_CHUNK_DATA_CR:
+                    if (!expect(buffer, CR, Phase.P_CHUNK_DATA_LF)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_CHUNK_DATA_LF:
+                    if (!expect(buffer, LF, Phase.P_CHUNK_SIZE)) {
+                        return Event.NEED_MORE;
+                    }
+                    break;
+                case P_TRAILER_FIELDS:
+                    head(headerFieldsParser.feed(buffer));
+                    if (!headerFieldsParser.end()) {
+                        return Event.NEED_MORE;
+                    }
+                    trailer = headerFieldsParser.getResult();
+                    main = Phase.P_END;
+                    if (trailer.iterator().hasNext()) {
+                        return Event.TRAILER;
+                    }
+                    break;
+                case P_END:
+                    reset();
+                    return Event.END;
+            }
+        }
+    }
+
+    /**
+     * Ends a response whose message-body is delimited by closing the connection.
+     *
+     * @return true if such a response was in progress
+     */
+    public boolean closed() {
+        if (main == Phase.P_BODY && remaining == UNTIL_CLOSE) {
+            keepAlive = false;
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    public HttpVersion httpVersion() {
+        return httpVersion;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public String reasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public HttpHeader header() {
+        return header;
+    }
+
+    /**
+     * @return length of the message-body, or {@link #UNTIL_CLOSE} if it is not known up front
+     */
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return the piece of message-body of the last {@link Event#CONTENT}, the caller owns the reference
+     */
+    public ByteBuf content() {
+        final ByteBuf content = this.content;
+        this.content = null;
+        return content;
+    }
+
+    public HttpHeader trailer() {
+        return trailer;
+    }
+
+    /**
+     * @return whether the connection can be reused after the last {@link Event#END}
+     */
+    public boolean keepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Decides how the message-body is framed.
+     *
+     * @return false if the response was interim and skipped
+     */
+    private boolean onHead() {
+        // 1xx is interim, the final response follows
+        if (statusCode / 100 == 1) {
+            reset();
+            return false;
+        }
+
+        final String connection = header.getHeader(HttpHeaderName.CONNECTION).orElse(null);
+        if (httpVersion == HttpVersion.HTTP_1_1) {
+            keepAlive = !containsToken(connection, "close");
+        } else {
+            keepAlive = containsToken(connection, "keep-alive");
+        }
+
+        final String transferEncoding = header.getHeader(HttpHeaderName.TRANSFER_ENCODING).orElse(null);
+        if (requestMethod == HttpMethod.HEAD || statusCode == 204 || statusCode == 304) {
+            contentLength = 0;
+        } else if (transferEncoding != null) {
+            chunked = isChunked(transferEncoding);
+            contentLength = UNTIL_CLOSE;
+        } else {
+            contentLength = header.getHeader(HttpHeaderName.CONTENT_LENGTH)
+                    .map(HttpResponseParser::parseContentLength)
+                    .orElse(UNTIL_CLOSE);
+        }
+
+        if (contentLength == UNTIL_CLOSE && !chunked) {
+            keepAlive = false;
+        }
+
+        remaining = contentLength;
+        main = chunked ? Phase.P_CHUNK_SIZE : Phase.P_BODY;
+        return true;
+    }
+
+    private ByteBuf readContent(final ByteBuf buffer) {
+        if (remaining == UNTIL_CLOSE) {
+            return buffer.readRetainedSlice(buffer.readableBytes());
+        }
+
+        final int length = (int) Math.min(remaining, buffer.readableBytes());
+        remaining -= length;
+        return buffer.readRetainedSlice(length);
+    }
+
+    private boolean expect(final ByteBuf buffer, final byte expected, final Phase next) {
+        if (!buffer.isReadable()) {
+            return false;
+        }
+        if (buffer.readByte() != expected) {
+            throw new ParseException();
+        }
+        head(1);
+        main = next;
+        return true;
+    }
+
+    private void head(final int consumed) {
+        headSize += consumed;
+        if (headSize > maxHeadSize) {
+            throw new ParseException();
+        }
+    }
+
+    private void reset() {
+        httpVersionParser.reset();
+        statusCodeParser.reset();
+        reasonPhraseParser.reset();
+        headerFieldsParser.reset();
+        chunkSizeParser.reset();
+
+        main = Phase.P_HTTP_VERSION;
+        headSize = 0;
+        chunked = false;
+        remaining = 0;
+        trailer = null;
+    }
+
+    private static long parseContentLength(final String value) {
+        try {
+            final long length = Long.parseLong(value);
+            if (length < 0) {
+                throw new ParseException();
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new ParseException();
+        }
+    }
+
+    /**
+     * chunked is only the framing when it is the final transfer-coding
+     */
+    private static boolean isChunked(final String transferEncoding) {
+        final int comma = transferEncoding.lastIndexOf(',');
+        return "chunked".equalsIgnoreCase(transferEncoding.substring(comma + 1).trim());
+    }
+
+    private static boolean containsToken(final String fieldValue, final String token) {
+        if (fieldValue == null) {
+            return false;
+        }
+        for (String element : fieldValue.split(",")) {
+            if (token.equalsIgnoreCase(element.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Phase {
+        P_HTTP_VERSION,
+        P_HTTP_VERSION_SP,
+        P_STATUS_CODE,
+        P_STATUS_CODE_SP,
+        P_REASON_PHRASE,
+        P_STATUS_LINE_CR,
+        P_STATUS_LINE_LF,
+        P_HEADER_FIELDS,
+
+        P_BODY,
+
+        P_CHUNK_SIZE,
+        P_CHUNK_DATA,
+        P_CHUNK_DATA_CR,
+        P_CHUNK_DATA_LF,
+        P_TRAILER_FIELDS,
+
+        P_END,
+    }
+}
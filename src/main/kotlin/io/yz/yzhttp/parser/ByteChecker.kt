@@ -1,54 +1,60 @@
-package io.yz.yzhttp.parser
-
-private const val TAB: Byte = 0x09
-private const val TAB_UNSIGNED: UByte = 0x09u
-
-private const val SP: Byte = 0x20
-private const val SP_UNSIGNED: UByte = 0x20u
-
-private const val EXCLAMATION_MARK: Byte = 0x21
-private const val EXCLAMATION_MARK_UNSIGNED: UByte = 0x21u
-
-private const val HASHTAG: Byte = 0x23
-private const val HASHTAG_UNSIGNED: UByte = 0x23u
-
-private const val APOSTROPHE: Byte = 0x27
-private const val APOSTROPHE_UNSIGNED: UByte = 0x27u
-
-private const val ASTERISK: Byte = 0x2A
-private const val ASTERISK_UNSIGNED: UByte = 0x2Au
-
-private const val PLUS: Byte = 0x2B
-private const val PLUS_UNSIGNED: UByte = 0x2Bu
+@file:JvmName("ByteChecker")
 
-private const val MINUS: Byte = 0x2D
-private const val MINUS_UNSIGNED: UByte = 0x2Du
-
-private const val DOT: Byte = 0x2E
-private const val DOT_SIGNED: UByte = 0x2Eu
+package io.yz.yzhttp.parser
 
-private const val N0: Byte = 0x30
-private const val N9: Byte = 0x39
-private const val N0_UNSIGNED: UByte = 0x30u
-private const val N9_UNSIGNED: UByte = 0x39u
+import io.netty.util.ByteProcessor
 
-private const val A: Byte = 0x41
-private const val Z: Byte = 0x5A
-private const val A_UNSIGNED: UByte = 0x41u
-private const val Z_UNSIGNED: UByte = 0x5Au
+private const val ALPHA = 0x01
+private const val DIGIT = 0x02
+private const val HEXDIG = 0x04
+private const val VCHAR = 0x08
+private const val OBS_TEXT = 0x10
+private const val TCHAR = 0x20
 
-private const val CARET: Byte = 0x5E
-private const val CARET_UNSIGNED: UByte = 0x5Eu
+/**
+ * HTAB / SP / VCHAR / obs-text, both reason-phrase and field-content are made of these
+ */
+private const val TEXT = 0x40
 
-private const val a: Byte = 0x61
-private const val z: Byte = 0x7A
-private const val a_unsigned: UByte = 0x61u
-private const val z_unsigned: UByte = 0x7Au
+/**
+ * 256-entry classification table indexed by the unsigned value of a byte, one bit per character class
+ */
+private val TABLE: ByteArray = ByteArray(256).also { table ->
+    val delimiters = "!#$%&'*+-.^_`|~"
+
+    for (i in 0..0xFF) {
+        var flags = 0
+
+        if (i in 0x41..0x5A || i in 0x61..0x7A) {
+            flags = flags or ALPHA
+        }
+        if (i in 0x30..0x39) {
+            flags = flags or DIGIT or HEXDIG
+        }
+        if (i in 0x41..0x46 || i in 0x61..0x66) {
+            flags = flags or HEXDIG
+        }
+        if (i in 0x21..0x7E) {
+            flags = flags or VCHAR or TEXT
+        }
+        if (i >= 0x80) {
+            flags = flags or OBS_TEXT or TEXT
+        }
+        if (i == 0x09 || i == 0x20) {
+            flags = flags or TEXT
+        }
+        if (flags and (ALPHA or DIGIT) != 0 || delimiters.indexOf(i.toChar()) >= 0) {
+            flags = flags or TCHAR
+        }
+
+        table[i] = flags.toByte()
+    }
+}
 
-private const val VERTICAL_BAR: Byte = 0x7C
-private const val VERTICAL_BAR_UNSIGNED: UByte = 0x7Cu
-private const val TILDE: Byte = 0x7E
-private const val TILDE_UNSIGNED: UByte = 0x7Eu
+@Suppress("NOTHING_TO_INLINE")
+private inline fun Byte.hasFlag(flag: Int): Boolean {
+    return TABLE[this.toInt() and 0xFF].toInt() and flag != 0
+}
 
 /**
  * ALPHA = 0x41-0x5A / 0x61-0x7A; A-Z / a-z
@@ -56,19 +62,11 @@ private const val TILDE_UNSIGNED: UByte = 0x7Eu
  * @return true or false
  */
 fun Byte.isAlpha(): Boolean {
-    return when (this) {
-        in A..Z -> true
-        in a..z -> true
-        else -> false
-    }
+    return hasFlag(ALPHA)
 }
 
 fun UByte.isAlpha(): Boolean {
-    return when (this) {
-        in A_UNSIGNED..Z_UNSIGNED -> true
-        in a_unsigned..z_unsigned -> true
-        else -> false
-    }
+    return toByte().isAlpha()
 }
 
 /**
@@ -77,11 +75,32 @@ fun UByte.isAlpha(): Boolean {
  * @return true or false
  */
 fun Byte.isDigit(): Boolean {
-    return this in N0..N9
+    return hasFlag(DIGIT)
 }
 
 fun UByte.isDigit(): Boolean {
-    return this in N0_UNSIGNED..N9_UNSIGNED
+    return toByte().isDigit()
+}
+
+/**
+ * HEXDIG = DIGIT / "A" / "B" / "C" / "D" / "E" / "F"; case-insensitive
+ *
+ * @return true or false
+ */
+fun Byte.isHexDigit(): Boolean {
+    return hasFlag(HEXDIG)
+}
+
+/**
+ * @return value of a HEXDIG
+ */
+fun Byte.hexValue(): Int {
+    val i = this.toInt()
+    return when {
+        i <= 0x39 -> i - 0x30
+        i <= 0x46 -> i - 0x41 + 10
+        else -> i - 0x61 + 10
+    }
 }
 
 /**
@@ -90,11 +109,11 @@ fun UByte.isDigit(): Boolean {
  * @return true or false
  */
 fun Byte.isVChar(): Boolean {
-    return this in EXCLAMATION_MARK..TILDE
+    return hasFlag(VCHAR)
 }
 
 fun UByte.isVChar(): Boolean {
-    return this in EXCLAMATION_MARK_UNSIGNED..TILDE_UNSIGNED
+    return toByte().isVChar()
 }
 
 /**
@@ -103,11 +122,11 @@ fun UByte.isVChar(): Boolean {
  * @return true or false
  */
 fun Byte.isObsText(): Boolean {
-    return this < 0
+    return hasFlag(OBS_TEXT)
 }
 
 fun UByte.isObsText(): Boolean {
-    return this >= 0x80u
+    return toByte().isObsText()
 }
 
 /**
@@ -116,37 +135,11 @@ fun UByte.isObsText(): Boolean {
  * @return true or false
  */
 fun Byte.isTChar(): Boolean {
-    return when {
-        this == EXCLAMATION_MARK -> true
-        this in HASHTAG..APOSTROPHE -> true
-        this == ASTERISK -> true
-        this == PLUS -> true
-        this == MINUS -> true
-        this == DOT -> true
-        this.isDigit() -> true
-        this in A..Z -> true
-        this in CARET..z -> true
-        this == VERTICAL_BAR -> true
-        this == TILDE -> true
-        else -> false
-    }
+    return hasFlag(TCHAR)
 }
 
 fun UByte.isTChar(): Boolean {
-    return when {
-        this == EXCLAMATION_MARK_UNSIGNED -> true
-        this in HASHTAG_UNSIGNED..APOSTROPHE_UNSIGNED -> true
-        this == ASTERISK_UNSIGNED -> true
-        this == PLUS_UNSIGNED -> true
-        this == MINUS_UNSIGNED -> true
-        this == DOT_SIGNED -> true
-        isDigit() -> true
-        this in A_UNSIGNED..Z_UNSIGNED -> true
-        this in CARET_UNSIGNED..z_unsigned -> true
-        this == VERTICAL_BAR_UNSIGNED -> true
-        this == TILDE_UNSIGNED -> true
-        else -> false
-    }
+    return toByte().isTChar()
 }
 
 /**
@@ -155,25 +148,43 @@ fun UByte.isTChar(): Boolean {
  * @return true or false
  */
 fun Byte.isReasonPhraseByte(): Boolean {
-    return when {
-        this < 0 -> true
-        this == TAB -> true
-        this == SP -> true
-        this in EXCLAMATION_MARK..TILDE -> true
-        else -> false
-    }
+    return hasFlag(TEXT)
 }
 
 fun UByte.isReasonPhraseByte(): Boolean {
-    return when {
-        this == TAB_UNSIGNED -> true
-        this == SP_UNSIGNED -> true
-        this in EXCLAMATION_MARK_UNSIGNED..TILDE_UNSIGNED -> true
-        this >= 0x80u -> true
-        else -> false
-    }
+    return toByte().isReasonPhraseByte()
+}
+
+/**
+ * field-vchar = VCHAR / obs-text
+ *
+ * @return true or false
+ */
+fun Byte.isFieldVarChar(): Boolean {
+    return hasFlag(VCHAR or OBS_TEXT)
 }
 
 fun UByte.isFieldVarChar(): Boolean {
-    return this.isVChar() || this.isObsText()
+    return toByte().isFieldVarChar()
+}
+
+/**
+ * field-content bytes, field-vchar / SP / HTAB
+ *
+ * @return true or false
+ */
+fun Byte.isFieldContentByte(): Boolean {
+    return hasFlag(TEXT)
 }
+
+/**
+ * Keeps going while the byte is a tchar, for [io.netty.buffer.ByteBuf.forEachByte]
+ */
+@JvmField
+val TCHAR_PROCESSOR: ByteProcessor = ByteProcessor { b -> b.isTChar() }
+
+/**
+ * Keeps going while the byte is HTAB / SP / VCHAR / obs-text, for [io.netty.buffer.ByteBuf.forEachByte]
+ */
+@JvmField
+val TEXT_PROCESSOR: ByteProcessor = ByteProcessor { b -> b.hasFlag(TEXT) }
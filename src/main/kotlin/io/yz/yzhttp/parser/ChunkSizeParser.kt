@@ -0,0 +1,102 @@
+package io.yz.yzhttp.parser
+
+import io.netty.buffer.ByteBuf
+
+/**
+ * chunk-size [ chunk-ext ] CRLF
+ *
+ * chunk-size = 1*HEXDIG
+ * chunk-ext = *( ";" chunk-ext-name [ "=" chunk-ext-val ] )
+ *
+ * chunk-ext is checked for allowed bytes and dropped.
+ */
+class ChunkSizeParser {
+    companion object {
+        private const val CR: Byte = 0x0D
+        private const val LF: Byte = 0x0A
+        private const val SP: Byte = 0x20
+        private const val HTAB: Byte = 0x09
+        private const val SEMICOLON: Byte = 0x3B
+
+        private enum class Phase {
+            P_DIGIT_1, P_DIGIT_N, P_EXTENSION, P_CR, P_END,
+        }
+    }
+
+    private var chunkSize: Long = 0
+    private var main: Phase = Phase.P_DIGIT_1
+
+    val result: Long
+        get() {
+            check(end())
+            return chunkSize
+        }
+
+    /**
+     * Consumes as much of the chunk-size line as [buffer] holds, moving its reader index.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuf): Int {
+        val initValue = buffer.readableBytes()
+
+        if (initValue == 0) {
+            return 0
+        }
+
+        L@ do {
+            when (main) {
+                Phase.P_DIGIT_1 -> {
+                    val b = buffer.readByte()
+                    if (!b.isHexDigit()) {
+                        throw ParseException()
+                    }
+                    chunkSize = b.hexValue().toLong()
+                    main = Phase.P_DIGIT_N
+                }
+                Phase.P_DIGIT_N -> {
+                    val b = buffer.readByte()
+                    main = when {
+                        b.isHexDigit() -> {
+                            if (chunkSize > (Long.MAX_VALUE shr 4)) {
+                                throw ParseException()
+                            }
+                            chunkSize = (chunkSize shl 4) + b.hexValue()
+                            Phase.P_DIGIT_N
+                        }
+                        b == SEMICOLON || b == SP || b == HTAB -> Phase.P_EXTENSION
+                        b == CR -> Phase.P_CR
+                        else -> throw ParseException()
+                    }
+                }
+                Phase.P_EXTENSION -> {
+                    val b = buffer.readByte()
+                    main = when {
+                        b.isFieldContentByte() -> Phase.P_EXTENSION
+                        b == CR -> Phase.P_CR
+                        else -> throw ParseException()
+                    }
+                }
+                Phase.P_CR -> {
+                    if (buffer.readByte() != LF) {
+                        throw ParseException()
+                    }
+                    main = Phase.P_END
+                }
+                // 循环结束
+                Phase.P_END -> break@L
+            }
+        } while (buffer.isReadable)
+
+        return initValue - buffer.readableBytes()
+    }
+
+    fun end(): Boolean {
+        return main == Phase.P_END
+    }
+
+    fun reset() {
+        chunkSize = 0
+        main = Phase.P_DIGIT_1
+    }
+}
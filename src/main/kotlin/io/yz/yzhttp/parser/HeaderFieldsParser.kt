@@ -0,0 +1,193 @@
+package io.yz.yzhttp.parser
+
+import io.netty.buffer.ByteBuf
+import io.netty.util.ByteProcessor
+import io.yz.yzhttp.client.HttpHeader
+
+/**
+ * *( header-field CRLF ) CRLF
+ *
+ * header-field = field-name ":" OWS field-value OWS
+ * field-value = *( field-content / obs-fold )
+ * obs-fold = CRLF 1*( SP / HTAB )
+ *
+ * Parses the header section, or the trailer-part of a chunked body, up to and including the empty line.
+ * Each obs-fold is replaced with a single SP, surrounding OWS is dropped.
+ *
+ * Field bytes are collected into one array with an offset/length index per field, nothing is decoded here,
+ * see [HttpHeader.ofRaw].
+ */
+class HeaderFieldsParser {
+    companion object {
+        private const val CR: Byte = 0x0D
+        private const val LF: Byte = 0x0A
+        private const val SP: Byte = 0x20
+        private const val HTAB: Byte = 0x09
+        private const val COLON: Byte = 0x3A
+
+        private enum class Phase {
+            P_START, P_NAME, P_OWS, P_VALUE, P_VALUE_CR, P_VALUE_LF, P_END_CR, P_END,
+        }
+    }
+
+    private var raw: ByteArray = ByteArray(1024)
+    private var rawLength: Int = 0
+
+    /**
+     * name offset, name length, value offset, value length of every field
+     */
+    private var index: IntArray = IntArray(4 * 16)
+    private var fields: Int = 0
+
+    private var main: Phase = Phase.P_START
+
+    val result: HttpHeader
+        get() {
+            check(end())
+            return HttpHeader.ofRaw(raw.copyOf(rawLength), index.copyOf(fields * 4), fields)
+        }
+
+    /**
+     * Consumes as much of the header section as [buffer] holds, moving its reader index.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuf): Int {
+        val initValue = buffer.readableBytes()
+
+        if (initValue == 0) {
+            return 0
+        }
+
+        L@ do {
+            when (main) {
+                Phase.P_START -> {
+                    val b = buffer.readByte()
+                    main = when {
+                        b.isTChar() -> {
+                            startField()
+                            append(b)
+                            Phase.P_NAME
+                        }
+                        b == CR -> Phase.P_END_CR
+                        else -> throw ParseException()
+                    }
+                }
+                Phase.P_NAME -> {
+                    scan(buffer, TCHAR_PROCESSOR)
+                    if (!buffer.isReadable) {
+                        break@L
+                    }
+                    if (buffer.readByte() != COLON) {
+                        throw ParseException()
+                    }
+                    startValue()
+                    main = Phase.P_OWS
+                }
+                Phase.P_OWS -> {
+                    val b = buffer.readByte()
+                    main = when {
+                        b == SP || b == HTAB -> Phase.P_OWS
+                        b.isFieldVarChar() -> {
+                            append(b)
+                            Phase.P_VALUE
+                        }
+                        b == CR -> Phase.P_VALUE_CR
+                        else -> throw ParseException()
+                    }
+                }
+                Phase.P_VALUE -> {
+                    scan(buffer, TEXT_PROCESSOR)
+                    if (!buffer.isReadable) {
+                        break@L
+                    }
+                    if (buffer.readByte() != CR) {
+                        throw ParseException()
+                    }
+                    main = Phase.P_VALUE_CR
+                }
+                Phase.P_VALUE_CR -> {
+                    if (buffer.readByte() != LF) {
+                        throw ParseException()
+                    }
+                    main = Phase.P_VALUE_LF
+                }
+                Phase.P_VALUE_LF -> {
+                    // 下一个字节决定是 obs-fold 还是下一个 header-field
+                    val b = buffer.getByte(buffer.readerIndex())
+                    if (b == SP || b == HTAB) {
+                        buffer.skipBytes(1)
+                        append(SP)
+                        main = Phase.P_OWS
+                    } else {
+                        endField()
+                        main = Phase.P_START
+                    }
+                }
+                Phase.P_END_CR -> {
+                    if (buffer.readByte() != LF) {
+                        throw ParseException()
+                    }
+                    main = Phase.P_END
+                }
+                // 循环结束
+                Phase.P_END -> break@L
+            }
+        } while (buffer.isReadable)
+
+        return initValue - buffer.readableBytes()
+    }
+
+    fun end(): Boolean {
+        return main == Phase.P_END
+    }
+
+    fun reset() {
+        rawLength = 0
+        fields = 0
+        main = Phase.P_START
+    }
+
+    private fun scan(buffer: ByteBuf, processor: ByteProcessor) {
+        val readerIndex = buffer.readerIndex()
+        val end = buffer.forEachByte(processor)
+        val length = (if (end == -1) buffer.writerIndex() else end) - readerIndex
+
+        ensureCapacity(rawLength + length)
+        buffer.readBytes(raw, rawLength, length)
+        rawLength += length
+    }
+
+    private fun append(b: Byte) {
+        ensureCapacity(rawLength + 1)
+        raw[rawLength++] = b
+    }
+
+    private fun startField() {
+        if (index.size < (fields + 1) * 4) {
+            index = index.copyOf(index.size * 2)
+        }
+        index[fields * 4] = rawLength
+    }
+
+    private fun startValue() {
+        val base = fields * 4
+        index[base + 1] = rawLength - index[base]
+        index[base + 2] = rawLength
+    }
+
+    private fun endField() {
+        val base = fields * 4
+        while (rawLength > index[base + 2] && (raw[rawLength - 1] == SP || raw[rawLength - 1] == HTAB)) {
+            rawLength--
+        }
+        index[base + 3] = rawLength - index[base + 2]
+        fields++
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity > raw.size) {
+            raw = raw.copyOf(maxOf(raw.size * 2, capacity))
+        }
+    }
+}
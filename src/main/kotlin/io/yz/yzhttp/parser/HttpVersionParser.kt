@@ -1,5 +1,7 @@
 package io.yz.yzhttp.parser
 
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
 import io.yz.yzhttp.constant.HttpVersion
 import java.nio.ByteBuffer
 
@@ -12,6 +14,12 @@ class HttpVersionParser {
         private const val DOT: Byte = 0x2E
         private const val SLASH: Byte = 0x2F
 
+        /**
+         * "HTTP/1.1" and "HTTP/1.0" read as one big-endian long
+         */
+        private const val HTTP_1_1: Long = 0x485454502F312E31L
+        private const val HTTP_1_0: Long = 0x485454502F312E30L
+
         private enum class Phase {
             P_H, P_T_1, P_T_2, P_P, P_SLASH, P_DIGIT_1, P_DOT, P_DIGIT_2, P_END,
         }
@@ -20,8 +28,8 @@ class HttpVersionParser {
     private val version: ByteArray = ByteArray(2)
     private var main: Phase = Phase.P_H
 
-    private inline fun translateToWhen(buffer: ByteBuffer, newPhase: Phase, condition: (b: Byte) -> Boolean) {
-        val b = buffer.get()
+    private inline fun translateToWhen(buffer: ByteBuf, newPhase: Phase, condition: (b: Byte) -> Boolean) {
+        val b = buffer.readByte()
 
         if (!condition(b)) {
             throw ParseException()
@@ -31,12 +39,12 @@ class HttpVersionParser {
     }
 
     private inline fun translateToWhenThen(
-        buffer: ByteBuffer,
+        buffer: ByteBuf,
         newPhase: Phase,
         condition: (b: Byte) -> Boolean,
         action: (b: Byte) -> Unit
     ) {
-        val b = buffer.get()
+        val b = buffer.readByte()
 
         if (!condition(b)) {
             throw ParseException()
@@ -55,21 +63,32 @@ class HttpVersionParser {
                 } else if (version[1] == '1'.code.toByte()) {
                     HttpVersion.HTTP_1_1
                 } else {
-                    throw NoSuchElementException()
+                    throw ParseException()
                 }
             } else {
-                throw NoSuchElementException()
+                throw ParseException()
             }
         }
 
-    fun feed(buffer: ByteBuffer): Int {
-        val initValue = buffer.remaining()
+    /**
+     * Consumes as much of the HTTP-version as [buffer] holds, moving its reader index.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuf): Int {
+        val initValue = buffer.readableBytes()
 
         if (initValue == 0) {
             return 0
         }
 
-        buffer.mark()
+        // 整个版本号都在 buffer 里时一次比较 8 个字节
+        if (main == Phase.P_H && initValue >= 8) {
+            when (buffer.getLong(buffer.readerIndex())) {
+                HTTP_1_1 -> return fastPath(buffer, '1'.code.toByte())
+                HTTP_1_0 -> return fastPath(buffer, '0'.code.toByte())
+            }
+        }
 
         L@ do {
             when (main) {
@@ -84,15 +103,33 @@ class HttpVersionParser {
                 // 循环结束
                 Phase.P_END -> break@L
             }
-        } while (buffer.remaining() > 0)
+        } while (buffer.isReadable)
+
+        return initValue - buffer.readableBytes()
+    }
 
-        val finalValue = buffer.remaining()
-        buffer.reset()
+    /**
+     * Same as [feed] on a [ByteBuf], but leaves the position of [buffer] untouched.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuffer): Int {
+        return feed(Unpooled.wrappedBuffer(buffer))
+    }
 
-        return initValue - finalValue
+    private fun fastPath(buffer: ByteBuf, minor: Byte): Int {
+        version[0] = '1'.code.toByte()
+        version[1] = minor
+        buffer.skipBytes(8)
+        main = Phase.P_END
+        return 8
     }
 
     fun end(): Boolean {
         return main == Phase.P_END
     }
+
+    fun reset() {
+        main = Phase.P_H
+    }
 }
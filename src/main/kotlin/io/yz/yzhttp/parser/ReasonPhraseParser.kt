@@ -1,68 +1,67 @@
 package io.yz.yzhttp.parser
 
-import java.nio.ByteBuffer
+import io.netty.buffer.ByteBuf
 
+/**
+ * reason-phrase = *( HTAB / SP / VCHAR / obs-text )
+ *
+ * The phrase ends at the CR of the status-line, which is left in the buffer.
+ */
 class ReasonPhraseParser {
     companion object {
+        private const val CR: Byte = 0x0D
+
         private enum class Phase {
-            P_DIGIT_1, P_DIGIT_2, P_DIGIT_3, P_END,
+            P_PHRASE, P_END,
         }
     }
 
-    private val reasonPhrase: MutableList<Byte> = mutableListOf()
-    private var main: Phase = Phase.P_DIGIT_1
-
-    private inline fun translateToWhenThen(
-        buffer: ByteBuffer, newPhase: Phase, condition: (b: Byte) -> Boolean, action: (b: Byte) -> Unit
-    ) {
-        val b: Byte = buffer.get()
-
-        if (!condition(b)) {
-            throw ParseException()
-        }
+    private var reasonPhrase: ByteArray = ByteArray(32)
+    private var length: Int = 0
+    private var main: Phase = Phase.P_PHRASE
 
-        action(b)
-        main = newPhase
-    }
-
-    val result: UInt
+    val result: String
         get() {
             check(end())
-            throw NotImplementedError()
+            return String(reasonPhrase, 0, length, Charsets.ISO_8859_1)
         }
 
-    fun feed(buffer: ByteBuffer): Int {
-        val initValue = buffer.remaining()
-
-        if (initValue == 0) {
+    /**
+     * Consumes as much of the reason-phrase as [buffer] holds, moving its reader index.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuf): Int {
+        if (main == Phase.P_END || !buffer.isReadable) {
             return 0
         }
 
-        buffer.mark()
+        val readerIndex = buffer.readerIndex()
+        val end = buffer.forEachByte(TEXT_PROCESSOR)
+        val consumed = (if (end == -1) buffer.writerIndex() else end) - readerIndex
 
-        L@ do {
-            when (main) {
-                Phase.P_DIGIT_1 -> translateToWhenThen(buffer, Phase.P_DIGIT_2, { b -> b.isDigit() }) { b ->
-                    reasonPhrase.add(b)
-                }
-                Phase.P_DIGIT_2 -> translateToWhenThen(buffer, Phase.P_DIGIT_3, { b -> b.isDigit() }) { b ->
-                    reasonPhrase.add(b)
-                }
-                Phase.P_DIGIT_3 -> translateToWhenThen(buffer, Phase.P_END, { b -> b.isDigit() }) { b ->
-                    reasonPhrase.add(b)
-                }
-                // 循环结束
-                Phase.P_END -> break@L
-            }
-        } while (buffer.remaining() > 0)
+        if (length + consumed > reasonPhrase.size) {
+            reasonPhrase = reasonPhrase.copyOf(maxOf(reasonPhrase.size * 2, length + consumed))
+        }
+        buffer.readBytes(reasonPhrase, length, consumed)
+        length += consumed
 
-        val finalValue = buffer.remaining()
-        buffer.reset()
+        if (end != -1) {
+            if (buffer.getByte(end) != CR) {
+                throw ParseException()
+            }
+            main = Phase.P_END
+        }
 
-        return initValue - finalValue
+        return consumed
     }
 
     fun end(): Boolean {
         return main == Phase.P_END
     }
+
+    fun reset() {
+        length = 0
+        main = Phase.P_PHRASE
+    }
 }
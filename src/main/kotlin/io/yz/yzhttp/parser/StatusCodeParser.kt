@@ -1,5 +1,7 @@
 package io.yz.yzhttp.parser
 
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
 import java.nio.ByteBuffer
 
 class StatusCodeParser {
@@ -13,9 +15,9 @@ class StatusCodeParser {
     private var main: Phase = Phase.P_DIGIT_1
 
     private inline fun translateToWhenThen(
-        buffer: ByteBuffer, newPhase: Phase, condition: (b: Byte) -> Boolean, action: (b: Byte) -> Unit
+        buffer: ByteBuf, newPhase: Phase, condition: (b: Byte) -> Boolean, action: (b: Byte) -> Unit
     ) {
-        val b = buffer.get()
+        val b = buffer.readByte()
 
         if (!condition(b)) {
             throw ParseException()
@@ -31,15 +33,18 @@ class StatusCodeParser {
             return statusCode[0] * 100 + statusCode[1] * 10 + statusCode[2]
         }
 
-    fun feed(buffer: ByteBuffer): Int {
-        val initValue = buffer.remaining()
+    /**
+     * Consumes as much of the status-code as [buffer] holds, moving its reader index.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuf): Int {
+        val initValue = buffer.readableBytes()
 
         if (initValue == 0) {
             return 0
         }
 
-        buffer.mark()
-
         L@ do {
             when (main) {
                 Phase.P_DIGIT_1 -> translateToWhenThen(buffer, Phase.P_DIGIT_2, { b -> b.isDigit() }) { b ->
@@ -54,15 +59,25 @@ class StatusCodeParser {
                 // 循环结束
                 Phase.P_END -> break@L
             }
-        } while (buffer.remaining() > 0)
+        } while (buffer.isReadable)
 
-        val finalValue = buffer.remaining()
-        buffer.reset()
+        return initValue - buffer.readableBytes()
+    }
 
-        return initValue - finalValue
+    /**
+     * Same as [feed] on a [ByteBuf], but leaves the position of [buffer] untouched.
+     *
+     * @return bytes consumed
+     */
+    fun feed(buffer: ByteBuffer): Int {
+        return feed(Unpooled.wrappedBuffer(buffer))
     }
 
     fun end(): Boolean {
         return main == Phase.P_END
     }
+
+    fun reset() {
+        main = Phase.P_DIGIT_1
+    }
 }
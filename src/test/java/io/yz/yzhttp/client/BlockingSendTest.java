@@ -0,0 +1,64 @@
+package io.yz.yzhttp.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockingSendTest {
+    private StubHttpServer server;
+
+    /**
+     * Answers {@code ok}, or a malformed status-line for {@code /bad}.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new StubHttpServer(path -> path.equals("/bad") ? "HTTP/1.1 2x0 OK\r\n\r\n" : StubHttpServer.OK);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void returnsResponse() throws Exception {
+        try (YzClient client = new YzClient()) {
+            final HttpResponse response = client.send(server.request("/"));
+            assertEquals(200, response.statusCode());
+            assertEquals("ok", StandardCharsets.US_ASCII.decode(response.messageBody()).toString());
+        }
+    }
+
+    @Test
+    void wrapsFailureInIOException() {
+        try (YzClient client = new YzClient()) {
+            final IOException e = assertThrows(IOException.class, () -> client.send(server.request("/bad")));
+            assertInstanceOf(ProtocolParseException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void refusesToBlockEventLoop() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setIoThreads(1).build())) {
+            final CompletableFuture<Void> blocked = new CompletableFuture<>();
+            client.sendAsync(server.request("/")).whenComplete((response, cause) -> {
+                try {
+                    client.send(server.request("/"));
+                    blocked.complete(null);
+                } catch (Throwable e) {
+                    blocked.completeExceptionally(e);
+                }
+            });
+            final ExecutionException e = assertThrows(ExecutionException.class, () -> blocked.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.resolver.HostsFileEntriesResolver;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDnsResolverTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+    private final AtomicLong now = new AtomicLong();
+
+    private EventLoopGroup group;
+    private Channel server;
+    private CachingDnsResolver resolver;
+
+    /**
+     * Answers {@code a.test} with 10.0.0.1 for 60 seconds and {@code v6.test} with ::1, after 50ms, and anything
+     * else with NXDOMAIN.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<DatagramChannel>() {
+                    @Override
+                    protected void initChannel(final DatagramChannel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(), new DatagramDnsResponseEncoder(), new StandInDnsServer());
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0))
+                .sync()
+                .channel();
+
+        resolver = resolver(HostsFileEntriesResolver.DEFAULT);
+    }
+
+    private CachingDnsResolver resolver(final HostsFileEntriesResolver hosts) {
+        final YzClientConfig config = YzClientConfig.builder()
+                .setTransport(Transport.NIO)
+                .setDnsServers(Collections.singletonList((InetSocketAddress) server.localAddress()))
+                .setHostsFileEntriesResolver(hosts)
+                .setDnsNegativeTtlSeconds(5)
+                .build();
+        return new CachingDnsResolver(group.next(), config, MetricsListener.NOOP, now::get);
+    }
+
+    @AfterEach
+    void stop() {
+        resolver.close();
+        server.close();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private int queries(final String name, final String type) {
+        final AtomicInteger count = queries.get(name + ". " + type);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    void concurrentLookupsShareOneQuery() throws InterruptedException {
+        final Future<List<InetAddress>> first = resolver.lookup("a.test");
+        final Future<List<InetAddress>> second = resolver.lookup("A.test");
+        assertSame(first, second);
+
+        assertEquals("10.0.0.1", first.sync().getNow().get(0).getHostAddress());
+        assertEquals(1, queries("a.test", "A"));
+
+        final Future<List<InetAddress>> cached = resolver.lookup("a.test");
+        assertTrue(cached.isDone());
+        assertEquals(first.getNow(), cached.getNow());
+        assertEquals(1, queries("a.test", "A"));
+    }
+
+    @Test
+    void refreshesAheadOfExpiry() throws InterruptedException {
+        resolver.lookup("a.test").sync();
+
+        now.addAndGet(50 * SECOND);
+        final Future<List<InetAddress>> stale = resolver.lookup("a.test");
+        assertTrue(stale.isSuccess());
+        for (int i = 0; i < 100 && queries("a.test", "A") < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, queries("a.test", "A"));
+        // let the refresh be answered, otherwise the next lookup joins it
+        Thread.sleep(200);
+
+        now.addAndGet(100 * SECOND);
+        final Future<List<InetAddress>> expired = resolver.lookup("a.test");
+        assertFalse(expired.isDone());
+        expired.sync();
+        assertEquals(3, queries("a.test", "A"));
+    }
+
+    @Test
+    void fallsBackToAaaa() throws InterruptedException {
+        final InetAddress address = resolver.lookup("v6.test").sync().getNow().get(0);
+
+        assertEquals(16, address.getAddress().length);
+        assertEquals(1, queries("v6.test", "A"));
+        assertEquals(1, queries("v6.test", "AAAA"));
+    }
+
+    @Test
+    void unknownNameIsCachedNegatively() {
+        assertInstanceOf(UnknownHostException.class, resolver.lookup("missing.test").awaitUninterruptibly().cause());
+        final int sent = queries("missing.test", "A") + queries("missing.test", "AAAA");
+        assertTrue(sent > 0);
+
+        final Future<List<InetAddress>> cached = resolver.lookup("missing.test");
+        assertTrue(cached.isDone());
+        assertInstanceOf(UnknownHostException.class, cached.cause());
+        assertEquals(sent, queries("missing.test", "A") + queries("missing.test", "AAAA"));
+
+        now.addAndGet(6 * SECOND);
+        resolver.lookup("missing.test").awaitUninterruptibly();
+        assertTrue(queries("missing.test", "A") + queries("missing.test", "AAAA") > sent);
+    }
+
+    @Test
+    void sweepDropsExpiredEntries() throws InterruptedException {
+        resolver.lookup("a.test").sync();
+        resolver.lookup("missing.test").awaitUninterruptibly();
+        assertEquals(2, resolver.size());
+
+        now.addAndGet(6 * SECOND);
+        resolver.sweep();
+        assertEquals(1, resolver.size());
+
+        now.addAndGet(60 * SECOND);
+        resolver.sweep();
+        assertEquals(0, resolver.size());
+    }
+
+    @Test
+    void literalsAndHostsEntriesSkipDns() throws Exception {
+        resolver.close();
+        final InetAddress local = InetAddress.getByAddress("local.test", new byte[]{(byte) 192, (byte) 168, 1, 1});
+        resolver = resolver((host, types) -> "local.test".equals(host) ? local : null);
+
+        assertEquals(local, resolver.lookup("local.test").getNow().get(0));
+        assertEquals("127.0.0.1", resolver.lookup("127.0.0.1").getNow().get(0).getHostAddress());
+        assertTrue(queries.isEmpty());
+    }
+
+    private final class StandInDnsServer extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final DatagramDnsQuery query) {
+            final DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            queries.computeIfAbsent(question.name() + " " + question.type().name(), k -> new AtomicInteger()).incrementAndGet();
+
+            final DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+            response.setRecursionAvailable(true);
+            response.addRecord(DnsSection.QUESTION, question);
+
+            final byte[] address = address(question.name(), question.type().name());
+            if (address != null) {
+                response.addRecord(DnsSection.ANSWER,
+                        new DefaultDnsRawRecord(question.name(), question.type(), 60, Unpooled.wrappedBuffer(address)));
+            } else if (!question.name().startsWith("a.test.") && !question.name().startsWith("v6.test.")) {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            }
+
+            ctx.executor().schedule(() -> ctx.writeAndFlush(response), 50, TimeUnit.MILLISECONDS);
+        }
+
+        private byte[] address(final String name, final String type) {
+            if ("a.test.".equals(name) && "A".equals(type)) {
+                return new byte[]{10, 0, 0, 1};
+            }
+            if ("v6.test.".equals(name) && "AAAA".equals(type)) {
+                final byte[] loopback = new byte[16];
+                loopback[15] = 1;
+                return loopback;
+            }
+            return null;
+        }
+    }
+}
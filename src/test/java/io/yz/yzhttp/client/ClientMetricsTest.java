@@ -0,0 +1,77 @@
+package io.yz.yzhttp.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientMetricsTest {
+    private StubHttpServer server;
+
+    /**
+     * Answers {@code ok}, or a malformed status-line for {@code /bad}.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new StubHttpServer(path -> path.equals("/bad") ? "HTTP/1.1 2x0 OK\r\n\r\n" : StubHttpServer.OK);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void recordsPhasesByHost() throws Exception {
+        final Map<RequestPhase, AtomicInteger> exported = new EnumMap<>(RequestPhase.class);
+        for (RequestPhase phase : RequestPhase.values()) {
+            exported.put(phase, new AtomicInteger());
+        }
+        final YzClientConfig config = YzClientConfig.builder()
+                .setMetricsListener(new MetricsListener() {
+                    @Override
+                    public void phase(final String host, final RequestPhase phase, final long nanos) {
+                        exported.get(phase).incrementAndGet();
+                    }
+                })
+                .build();
+
+        try (YzClient client = new YzClient(config)) {
+            for (int i = 0; i < 2; i++) {
+                assertEquals(200, client.sendAsync(server.request("/")).get(5, TimeUnit.SECONDS).statusCode());
+            }
+
+            final HostMetrics metrics = client.metrics().host("127.0.0.1");
+            assertEquals(1, metrics.histogram(RequestPhase.DNS).count());
+            assertEquals(1, metrics.histogram(RequestPhase.CONNECT).count());
+            for (RequestPhase phase : new RequestPhase[]{RequestPhase.WRITE, RequestPhase.TIME_TO_FIRST_BYTE, RequestPhase.HEADER_PARSE, RequestPhase.BODY}) {
+                assertEquals(2, metrics.histogram(phase).count(), phase::name);
+                assertEquals(2, exported.get(phase).get(), phase::name);
+            }
+            assertTrue(metrics.histogram(RequestPhase.CONNECT).max() > 0);
+            assertTrue(metrics.bytesWritten() > 0);
+            assertTrue(metrics.bytesRead() >= 40);
+            assertEquals(2, metrics.connectionsAcquired());
+            assertEquals(0.5, metrics.reuseRatio());
+            assertEquals(0, metrics.parseErrors());
+        }
+    }
+
+    @Test
+    void countsParseErrors() throws Exception {
+        try (YzClient client = new YzClient()) {
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.sendAsync(server.request("/bad")).get(5, TimeUnit.SECONDS));
+
+            assertInstanceOf(ProtocolParseException.class, e.getCause());
+            assertEquals(1, client.metrics().host("127.0.0.1").parseErrors());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+    private static final long DELAY_MILLIS = 100;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private StubHttpServer server;
+
+    /**
+     * Answers {@code ok} after {@link #DELAY_MILLIS}, or {@code 503} for {@code /busy}.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new StubHttpServer((ctx, path) -> {
+            final String response = path.equals("/busy")
+                    ? "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n"
+                    : StubHttpServer.OK;
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            ctx.executor().schedule(() -> {
+                concurrent.decrementAndGet();
+                ctx.writeAndFlush(response);
+            }, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    private static YzClientConfig.Builder limited(final int initial, final int min, final int max) {
+        return YzClientConfig.builder()
+                .setAdaptiveConcurrency(true)
+                .setConcurrencyLimit(initial, min, max);
+    }
+
+    @Test
+    void queuesBeyondLimit() throws Exception {
+        try (YzClient client = new YzClient(limited(1, 1, 1).build())) {
+            final List<CompletableFuture<HttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                responses.add(client.sendAsync(server.request("/")));
+            }
+            for (CompletableFuture<HttpResponse> response : responses) {
+                assertEquals(200, response.get(5, TimeUnit.SECONDS).statusCode());
+            }
+            assertEquals(1, maxConcurrent.get());
+        }
+    }
+
+    @Test
+    void failsFastBeyondLimit() throws Exception {
+        try (YzClient client = new YzClient(limited(1, 1, 1).setLimitPolicy(LimitPolicy.FAIL_FAST).build())) {
+            final CompletableFuture<HttpResponse> first = client.sendAsync(server.request("/"));
+            final CompletableFuture<HttpResponse> second = client.sendAsync(server.request("/"));
+
+            final ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ConcurrencyLimitException.class, e.getCause());
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    @Test
+    void cancelledRequestKeepsItsSlot() throws Exception {
+        try (YzClient client = new YzClient(limited(1, 1, 1).setLimitPolicy(LimitPolicy.FAIL_FAST).build())) {
+            client.sendAsync(server.request("/")).cancel(false);
+
+            // still on the wire, so still counted
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.sendAsync(server.request("/")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ConcurrencyLimitException.class, e.getCause());
+
+            Thread.sleep(3 * DELAY_MILLIS);
+            assertEquals(200, client.sendAsync(server.request("/")).get(5, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    @Test
+    void backsOffOnOverload() throws Exception {
+        try (YzClient client = new YzClient(limited(10, 1, 100).build())) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(503, client.sendAsync(server.request("/busy")).get(5, TimeUnit.SECONDS).statusCode());
+            }
+
+            assertTrue(client.concurrencyLimit("127.0.0.1", server.port()) < 10);
+        }
+    }
+
+    @Test
+    void forgetsIdleHosts() throws Exception {
+        final EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final ConcurrencyLimiter limiter = new ConcurrencyLimiter(group, limited(1, 1, 1).build(),
+                    TimeUnit.MILLISECONDS.toNanos(50));
+            final AggregatingExchange exchange = new AggregatingExchange(server.request("/"));
+            limiter.send(exchange, () -> exchange.fail(new IOException("refused")));
+            assertThrows(ExecutionException.class, () -> exchange.future().get(5, TimeUnit.SECONDS));
+            assertEquals(1, limiter.size());
+
+            for (int i = 0; i < 100 && limiter.size() > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, limiter.size());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void rejectsInitialLimitOutsideBounds() {
+        assertThrows(IllegalArgumentException.class, () -> limited(0, 1, 10).build());
+        assertThrows(IllegalArgumentException.class, () -> limited(5, 0, 10).build());
+    }
+}
@@ -0,0 +1,55 @@
+package io.yz.yzhttp.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientLimitTest {
+    private static final long RTT = 1_000_000;
+
+    @Test
+    void growsWhileLatencyIsSteady() {
+        final GradientLimit limit = new GradientLimit(10, 1, 100);
+        for (int i = 0; i < 1_000; i++) {
+            limit.sample(RTT, limit.limit(), false);
+        }
+
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    void keepsUnusedLimit() {
+        final GradientLimit limit = new GradientLimit(10, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            limit.sample(RTT, 1, false);
+        }
+
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        final GradientLimit limit = new GradientLimit(50, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            limit.sample(RTT, limit.limit(), false);
+        }
+        final int before = limit.limit();
+        for (int i = 0; i < 50; i++) {
+            limit.sample(5 * RTT, limit.limit(), false);
+        }
+
+        assertTrue(limit.limit() < before / 2, () -> "limit " + limit.limit());
+    }
+
+    @Test
+    void backsOffOnDropsDownToMin() {
+        final GradientLimit limit = new GradientLimit(50, 2, 100);
+        limit.sample(RTT, 50, true);
+        assertEquals(45, limit.limit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.sample(RTT, 50, true);
+        }
+        assertEquals(2, limit.limit());
+    }
+}
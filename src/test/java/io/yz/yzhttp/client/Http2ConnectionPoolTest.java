@@ -0,0 +1,215 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.AsciiString;
+import io.netty.util.AttributeKey;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Http2ConnectionPoolTest {
+    private static final int SERVER_MAX_STREAMS = 4;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final AtomicInteger maxOpenStreams = new AtomicInteger();
+
+    private EventLoopGroup group;
+    private Channel server;
+    private int port;
+
+    /**
+     * HTTP/2 server, with prior knowledge or h2c upgrade, answering {@code <method> <path> <body length>} after 20ms.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        connections.incrementAndGet();
+                        final HttpServerCodec http1 = new HttpServerCodec();
+                        final HttpServerUpgradeHandler upgrade = new HttpServerUpgradeHandler(http1, protocol -> {
+                            if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                                return new Http2ServerUpgradeCodec(frameCodec(), new Http2MultiplexHandler(new Echo()));
+                            }
+                            return null;
+                        });
+                        ch.pipeline().addLast(new CleartextHttp2ServerUpgradeHandler(http1, upgrade, new ChannelInitializer<Channel>() {
+                            @Override
+                            protected void initChannel(final Channel ch) {
+                                ch.pipeline().addLast(frameCodec(), new Http2MultiplexHandler(new Echo()));
+                            }
+                        }));
+                    }
+                })
+                .bind(0)
+                .sync()
+                .channel();
+        port = ((InetSocketAddress) server.localAddress()).getPort();
+    }
+
+    private static Http2FrameCodec frameCodec() {
+        return Http2FrameCodecBuilder.forServer()
+                .initialSettings(Http2Settings.defaultSettings().maxConcurrentStreams(SERVER_MAX_STREAMS))
+                .build();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private HttpRequest.Builder request(final HttpMethod method, final String path) {
+        return HttpRequest.builder()
+                .setHost("127.0.0.1")
+                .setPort(port)
+                .setMethod(method)
+                .setPath(path)
+                .setVersion(HttpVersion.HTTP_2_0);
+    }
+
+    private static String body(final HttpResponse response) {
+        return StandardCharsets.US_ASCII.decode(response.messageBody()).toString();
+    }
+
+    @Test
+    void multiplexesOnOneConnection() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setMaxConnectionsPerHost(1).build())) {
+            final List<CompletableFuture<HttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                responses.add(client.sendAsync(request(HttpMethod.GET, "/" + i).build()));
+            }
+            responses.add(client.sendAsync(request(HttpMethod.POST, "/post")
+                    .setBody(RequestBody.ofBytes(new byte[100_000]))
+                    .build()));
+
+            for (int i = 0; i < 20; i++) {
+                final HttpResponse response = responses.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(HttpVersion.HTTP_2_0, response.httpVersion());
+                assertEquals(200, response.statusCode());
+                assertEquals("GET /" + i + " 0", body(response));
+                assertEquals("text/plain", response.httpHeader().getHeader("Content-Type").orElse(null));
+            }
+            assertEquals("POST /post 100000", body(responses.get(20).get(5, TimeUnit.SECONDS)));
+        }
+
+        assertEquals(1, connections.get());
+        assertEquals(SERVER_MAX_STREAMS, maxOpenStreams.get());
+    }
+
+    @Test
+    void opensAnotherConnectionWhenFull() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setMaxConnectionsPerHost(2).build())) {
+            final List<CompletableFuture<HttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 3 * SERVER_MAX_STREAMS; i++) {
+                responses.add(client.sendAsync(request(HttpMethod.GET, "/" + i).build()));
+            }
+            for (CompletableFuture<HttpResponse> response : responses) {
+                assertEquals(200, response.get(5, TimeUnit.SECONDS).statusCode());
+            }
+        }
+
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    void upgradesFromHttp11() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setH2cUpgrade(true).build())) {
+            final HttpResponse response = client.sendAsync(request(HttpMethod.GET, "/upgraded").build()).get(5, TimeUnit.SECONDS);
+
+            assertEquals(HttpVersion.HTTP_2_0, response.httpVersion());
+            assertEquals("GET /upgraded 0", body(response));
+        }
+    }
+
+    @Sharable
+    private final class Echo extends ChannelInboundHandlerAdapter {
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            maxOpenStreams.accumulateAndGet(openStreams.incrementAndGet(), Math::max);
+            ctx.channel().closeFuture().addListener(f -> openStreams.decrementAndGet());
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            final boolean endStream;
+            if (msg instanceof Http2HeadersFrame) {
+                final Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+                ctx.channel().attr(RequestLine.KEY).set(new RequestLine(frame.headers().method() + " " + frame.headers().path()));
+                endStream = frame.isEndStream();
+            } else if (msg instanceof Http2DataFrame) {
+                final Http2DataFrame frame = (Http2DataFrame) msg;
+                ctx.channel().attr(RequestLine.KEY).get().bodyLength += frame.content().readableBytes();
+                endStream = frame.isEndStream();
+                frame.release();
+            } else {
+                return;
+            }
+
+            if (endStream) {
+                final RequestLine request = ctx.channel().attr(RequestLine.KEY).get();
+                final ByteBuf body = Unpooled.copiedBuffer(request.line + " " + request.bodyLength, StandardCharsets.US_ASCII);
+                ctx.executor().schedule(() -> {
+                    ctx.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers()
+                            .status("200")
+                            .set("content-type", "text/plain")
+                            .setInt("content-length", body.readableBytes())));
+                    ctx.writeAndFlush(new DefaultHttp2DataFrame(body, true));
+                }, 20, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static final class RequestLine {
+        private static final AttributeKey<RequestLine> KEY = AttributeKey.valueOf("requestLine");
+
+        private final String line;
+        private int bodyLength;
+
+        private RequestLine(final String line) {
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.yz.yzhttp.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.yz.yzhttp.constant.HttpMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpConnectionPoolTest {
+    private static final long DELAY_MILLIS = 50;
+
+    private final Map<String, CopyOnWriteArrayList<Channel>> received = new ConcurrentHashMap<>();
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private StubHttpServer server;
+
+    /**
+     * Answers {@code ok} after {@link #DELAY_MILLIS}, and {@code /close} with {@code Connection: close} before closing
+     * the connection. The first {@code /drop} gets the connection closed without an answer. Remembers the connection
+     * each request came in on.
+     */
+    @BeforeEach
+    void start() throws InterruptedException {
+        server = new StubHttpServer((ctx, path) -> {
+            received.computeIfAbsent(path, p -> new CopyOnWriteArrayList<>()).add(ctx.channel());
+            if (path.equals("/drop") && dropped.compareAndSet(false, true)) {
+                ctx.close();
+                return;
+            }
+            ctx.executor().schedule(() -> {
+                if (path.equals("/close")) {
+                    ctx.writeAndFlush("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok")
+                            .addListener(ChannelFutureListener.CLOSE);
+                } else if (ctx.channel().isActive()) {
+                    ctx.writeAndFlush(StubHttpServer.OK);
+                }
+            }, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    private void awaitReceived(final String path) throws InterruptedException {
+        for (int i = 0; i < 100 && !received.containsKey(path); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(received.containsKey(path));
+    }
+
+    @Test
+    void retriesRequestPipelinedBehindConnectionClose() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setMaxPipelineDepth(2).build())) {
+            final CompletableFuture<HttpResponse> closing = client.sendAsync(server.request("/close"));
+            awaitReceived("/close");
+            final CompletableFuture<HttpResponse> pipelined = client.sendAsync(server.request("/b"));
+
+            assertEquals(200, closing.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, pipelined.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(2, received.get("/b").size());
+            assertSame(received.get("/close").get(0), received.get("/b").get(0));
+            assertNotSame(received.get("/b").get(0), received.get("/b").get(1));
+        }
+    }
+
+    @Test
+    void retriesRequestClosedWithoutAnswer() throws Exception {
+        try (YzClient client = new YzClient()) {
+            assertEquals(200, client.sendAsync(server.request("/drop")).get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(2, received.get("/drop").size());
+        }
+    }
+
+    @Test
+    void nonIdempotentRequestBypassesPipelining() throws Exception {
+        try (YzClient client = new YzClient(YzClientConfig.builder().setMaxPipelineDepth(4).build())) {
+            final CompletableFuture<HttpResponse> a = client.sendAsync(server.request("/a"));
+            awaitReceived("/a");
+            final CompletableFuture<HttpResponse> b = client.sendAsync(server.request("/b"));
+            final CompletableFuture<HttpResponse> c = client.sendAsync(server.request(HttpMethod.POST, "/c"));
+            final CompletableFuture<HttpResponse> d = client.sendAsync(server.request("/d"));
+
+            for (CompletableFuture<HttpResponse> response : Arrays.asList(a, b, c, d)) {
+                assertEquals(200, response.get(5, TimeUnit.SECONDS).statusCode());
+            }
+            final Channel pipelined = received.get("/a").get(0);
+            assertSame(pipelined, received.get("/b").get(0));
+            assertSame(pipelined, received.get("/d").get(0));
+            assertNotSame(pipelined, received.get("/c").get(0));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.yz.yzhttp.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpHeaderTest {
+    /**
+     * Lays out fields the way the parser does, name and value bytes back to back.
+     */
+    private static HttpHeader raw(final String... fields) {
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        final int[] index = new int[fields.length * 2];
+        for (int i = 0; i < fields.length; i++) {
+            final byte[] bytes = fields[i].getBytes(StandardCharsets.ISO_8859_1);
+            index[i * 2] = raw.size();
+            index[i * 2 + 1] = bytes.length;
+            raw.write(bytes, 0, bytes.length);
+        }
+        return HttpHeader.ofRaw(raw.toByteArray(), index, fields.length / 2);
+    }
+
+    private static List<String> list(final Iterable<?> iterable) {
+        final List<String> list = new ArrayList<>();
+        iterable.forEach(e -> list.add(e.toString()));
+        return list;
+    }
+
+    @Test
+    void rawLookupIgnoresCase() {
+        final HttpHeader header = raw("Content-Type", "text/plain", "Content-Length", "42");
+
+        assertEquals("text/plain", header.getHeader("content-type").orElse(null));
+        assertEquals("42", header.getHeader("CONTENT-LENGTH").orElse(null));
+        assertFalse(header.getHeader("Content-Typ").isPresent());
+    }
+
+    @Test
+    void rawLaterFieldReplacesEarlier() {
+        final HttpHeader header = raw("X-A", "1", "Set-Cookie", "a=1", "x-a", "2", "set-cookie", "b=2");
+
+        assertEquals("2", header.getHeader("X-A").orElse(null));
+        assertEquals(Arrays.asList("a=1", "b=2"), list(header.getCookies()));
+        assertEquals(3, list(header).size());
+    }
+
+    @Test
+    void builderKeepsSemantics() {
+        final HttpHeader header = HttpHeader.builder()
+                .addField("X-A", "1")
+                .addField("Set-Cookie", "a=1")
+                .addField("x-a", "2")
+                .addField("set-cookie", "b=2")
+                .build();
+
+        assertEquals("2", header.getHeader("X-A").orElse(null));
+        assertEquals(Arrays.asList("a=1", "b=2"), list(header.getCookies()));
+        assertEquals(3, list(header).size());
+    }
+
+    @Test
+    void obsTextValue() {
+        final HttpHeader header = raw("X-Latin", "caf\u00e9");
+
+        assertEquals("caf\u00e9", header.getHeader("x-latin").orElse(null));
+    }
+
+    @Test
+    void collidingNamesStayApart() {
+        // "a~" and "b_" share a hash
+        final HttpHeader header = raw("a~", "1", "b_", "2", "A~", "3");
+
+        assertEquals("3", header.getHeader("a~").orElse(null));
+        assertEquals("2", header.getHeader("B_").orElse(null));
+        assertEquals(2, list(header).size());
+    }
+
+    @Test
+    void lookupByName() {
+        final String[] fields = new String[80];
+        for (int i = 0; i < 40; i++) {
+            fields[i * 2] = "X-Field-" + i;
+            fields[i * 2 + 1] = String.valueOf(i);
+        }
+        fields[78] = "content-length";
+        final HttpHeader header = raw(fields);
+
+        assertEquals("39", header.getHeader(HttpHeaderName.CONTENT_LENGTH).orElse(null));
+        assertEquals("17", header.getHeader(HttpHeaderName.of("x-field-17")).orElse(null));
+        assertFalse(header.getHeader(HttpHeaderName.CONTENT_TYPE).isPresent());
+        assertSame(HttpHeaderName.SET_COOKIE, HttpHeaderName.of("SET-COOKIE"));
+    }
+
+    @Test
+    void builderResetIsReusable() {
+        final HttpHeader.Builder builder = HttpHeader.builder();
+        for (int i = 0; i < 40; i++) {
+            builder.addField("X-Field-" + i, String.valueOf(i));
+        }
+        final HttpHeader first = builder.build();
+
+        builder.reset().addField("X-Other", "1").addField("X-Other", "2");
+        assertEquals(Arrays.asList("1", "2"), list(builder.getFields("x-other")));
+        assertEquals(Arrays.asList("1", "2"), list(builder.removeFields("X-OTHER")));
+        assertFalse(builder.removeField("X-Other", "1"));
+        assertFalse(builder.build().getHeader("X-Field-0").isPresent());
+        assertEquals("0", first.getHeader("X-Field-0").orElse(null));
+        assertEquals(40, list(first).size());
+    }
+}
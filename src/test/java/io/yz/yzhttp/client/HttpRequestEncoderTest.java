@@ -0,0 +1,121 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRequestEncoderTest {
+    @Test
+    void lengthPrePassMatchesEncoding() {
+        final EmbeddedChannel channel = new EmbeddedChannel(HttpRequestEncoder.INSTANCE);
+        final HttpRequest request = HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(80)
+                .setMethod(HttpMethod.GET)
+                .setPath("/caf\u00e9?q=1")
+                .setVersion(HttpVersion.HTTP_1_1)
+                .build();
+
+        assertTrue(channel.writeOutbound(request, request));
+        for (int i = 0; i < 2; i++) {
+            final ByteBuf out = channel.readOutbound();
+            assertEquals(HttpRequestEncoder.length(request), out.readableBytes());
+            assertEquals("GET /caf\u00c3\u00a9?q=1 HTTP/1.1\r\nHost: localhost\r\nUser-Agent: YzClient\r\n\r\n",
+                    out.toString(StandardCharsets.ISO_8859_1));
+            assertTrue(out.release());
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void rejectsHttp2() {
+        final EmbeddedChannel channel = new EmbeddedChannel(HttpRequestEncoder.INSTANCE);
+        final HttpRequest request = HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(80)
+                .setMethod(HttpMethod.GET)
+                .setPath("/")
+                .setVersion(HttpVersion.HTTP_2_0)
+                .build();
+
+        assertThrows(Exception.class, () -> channel.writeOutbound(request));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void templateMatchesBuiltRequest() {
+        final EmbeddedChannel channel = new EmbeddedChannel(HttpRequestEncoder.INSTANCE);
+        final HttpRequest.Builder builder = HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(8080)
+                .setMethod(HttpMethod.POST)
+                .setVersion(HttpVersion.HTTP_1_1);
+        final RequestTemplate template = builder.buildTemplate();
+
+        channel.writeOutbound(template.request("/items/1", Collections.singletonMap("X-Trace", "abc")));
+        final ByteBuf templated = channel.readOutbound();
+        channel.writeOutbound(builder.setPath("/items/1").addHeader("X-Trace", "abc").build());
+        final ByteBuf built = channel.readOutbound();
+
+        assertEquals("POST /items/1 HTTP/1.1\r\nHost: localhost:8080\r\nUser-Agent: YzClient\r\nX-Trace: abc\r\n\r\n",
+                templated.toString(StandardCharsets.US_ASCII));
+        assertEquals(built.readableBytes(), templated.readableBytes());
+        assertTrue(templated.release());
+        assertTrue(built.release());
+
+        template.close();
+        assertThrows(Exception.class, () -> channel.writeOutbound(template.request("/")));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void fileBodyIsSentAsFileRegion(@TempDir final Path dir) throws Exception {
+        final Path file = Files.write(dir.resolve("body"), "hello world".getBytes(StandardCharsets.US_ASCII));
+        final EmbeddedChannel channel = new EmbeddedChannel(HttpRequestEncoder.INSTANCE);
+
+        channel.writeOutbound(HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(80)
+                .setMethod(HttpMethod.PUT)
+                .setPath("/upload")
+                .setVersion(HttpVersion.HTTP_1_1)
+                .setBody(RequestBody.ofFile(file))
+                .build());
+
+        final ByteBuf head = channel.readOutbound();
+        assertTrue(head.toString(StandardCharsets.US_ASCII).contains("\r\nContent-Length: 11\r\n"));
+        head.release();
+        final FileRegion region = channel.readOutbound();
+        assertEquals(11, region.count());
+        region.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void fileBodyFallsBackToChunks(@TempDir final Path dir) throws Exception {
+        final Path file = Files.write(dir.resolve("body"), new byte[20000]);
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+
+        channel.writeOutbound(RequestBody.ofFile(file).content(false));
+
+        int length = 0;
+        for (ByteBuf chunk; (chunk = channel.readOutbound()) != null; ) {
+            length += chunk.readableBytes();
+            chunk.release();
+        }
+        assertEquals(20000, length);
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,45 @@
+package io.yz.yzhttp.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketsCoverEveryValue() {
+        for (long value = 0; value < 100_000; value++) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestValue(index), () -> "value " + index);
+            assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1), () -> "value " + index);
+        }
+    }
+
+    @Test
+    void percentilesWithinBucketError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(10_000_000, histogram.max());
+        assertEquals(5_000_500, histogram.mean(), 0.5);
+        assertEquals(5_000_000, histogram.valueAtPercentile(50), 5_000_000 / 16.0);
+        assertEquals(9_900_000, histogram.valueAtPercentile(99), 9_900_000 / 16.0);
+        assertEquals(10_000_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void emptyAndOutOfRange() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        assertEquals(0, histogram.mean());
+
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals((1L << 40) - 1, histogram.valueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+    }
+}
@@ -0,0 +1,237 @@
+package io.yz.yzhttp.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.yz.yzhttp.client.low.HttpObjectHandler;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledConnectionHandlerTest {
+    private final List<Channel> released = new ArrayList<>();
+    private final List<HttpExchange> retried = new ArrayList<>();
+
+    private EmbeddedChannel channel() {
+        final EmbeddedChannel channel = new EmbeddedChannel(
+                HttpRequestEncoder.INSTANCE,
+                new HttpObjectHandler(),
+                new PooledConnectionHandler(released::add, retried::add, 2, "localhost", MetricsListener.NOOP)
+        );
+        channel.pipeline().get(PooledConnectionHandler.class).acquired();
+        return channel;
+    }
+
+    private static HttpRequest request(final String path) {
+        return HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(80)
+                .setMethod(HttpMethod.GET)
+                .setPath(path)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .build();
+    }
+
+    private static void write(final EmbeddedChannel channel, final HttpExchange exchange) {
+        channel.writeOutbound(exchange);
+        final ByteBuf encoded = channel.readOutbound();
+        encoded.release();
+    }
+
+    private static CompletableFuture<HttpResponse> send(final EmbeddedChannel channel, final String path) {
+        final AggregatingExchange exchange = new AggregatingExchange(request(path));
+        write(channel, exchange);
+        return exchange.future();
+    }
+
+    private static ByteBuf ascii(final String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII);
+    }
+
+    private static String body(final HttpResponse response) {
+        return StandardCharsets.US_ASCII.decode(response.messageBody()).toString();
+    }
+
+    @Test
+    void pipelinedResponsesCompleteInOrder() throws Exception {
+        final EmbeddedChannel channel = channel();
+        assertTrue(channel.pipeline().get(PooledConnectionHandler.class).tryReserve());
+
+        final CompletableFuture<HttpResponse> first = send(channel, "/a");
+        final CompletableFuture<HttpResponse> second = send(channel, "/b");
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhel"));
+        assertFalse(first.isDone());
+        channel.writeInbound(ascii("loHTTP/1.1 404 Not Found\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n"));
+        assertEquals("hello", body(first.get()));
+        assertFalse(second.isDone());
+        assertTrue(released.isEmpty());
+
+        channel.writeInbound(ascii("2\r\nde\r\n0\r\n\r\n"));
+        assertEquals(404, second.get().statusCode());
+        assertEquals("abcde", body(second.get()));
+        assertEquals(1, released.size());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void closeFailsPendingExchanges() {
+        final EmbeddedChannel channel = channel();
+
+        final CompletableFuture<HttpResponse> pending = send(channel, "/");
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhel"));
+        channel.close();
+
+        final ExecutionException e = assertThrows(ExecutionException.class, pending::get);
+        assertTrue(e.getCause() instanceof ClosedChannelException);
+        assertEquals(1, released.size());
+    }
+
+    @Test
+    void closeBeforeResponseRetriesExchange() {
+        final EmbeddedChannel channel = channel();
+
+        final AggregatingExchange exchange = new AggregatingExchange(request("/"));
+        write(channel, exchange);
+        channel.close();
+
+        assertFalse(exchange.future().isDone());
+        assertEquals(Collections.singletonList(exchange), retried);
+        assertEquals(1, released.size());
+    }
+
+    @Test
+    void closeRetriesUnansweredPipelinedExchanges() throws Exception {
+        final EmbeddedChannel channel = channel();
+        assertTrue(channel.pipeline().get(PooledConnectionHandler.class).tryReserve());
+
+        final CompletableFuture<HttpResponse> first = send(channel, "/a");
+        final AggregatingExchange second = new AggregatingExchange(request("/b"));
+        write(channel, second);
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok"));
+
+        assertEquals("ok", body(first.get()));
+        assertFalse(second.future().isDone());
+        assertFalse(channel.isOpen());
+        assertEquals(Collections.singletonList(second), retried);
+
+        // pipelined again on the next connection, it is not retried twice
+        final EmbeddedChannel next = channel();
+        assertTrue(next.pipeline().get(PooledConnectionHandler.class).tryReserve());
+        send(next, "/a");
+        write(next, second);
+        next.writeInbound(ascii("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok"));
+
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> second.future().get());
+        assertInstanceOf(ClosedChannelException.class, e.getCause());
+        assertEquals(1, retried.size());
+    }
+
+    @Test
+    void closeFailsPipelinedNonIdempotentExchange() {
+        final EmbeddedChannel channel = channel();
+        assertTrue(channel.pipeline().get(PooledConnectionHandler.class).tryReserve());
+
+        send(channel, "/a");
+        final AggregatingExchange exchange = new AggregatingExchange(HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(80)
+                .setMethod(HttpMethod.POST)
+                .setPath("/b")
+                .setVersion(HttpVersion.HTTP_1_1)
+                .build());
+        write(channel, exchange);
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok"));
+
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> exchange.future().get());
+        assertInstanceOf(ClosedChannelException.class, e.getCause());
+        assertTrue(retried.isEmpty());
+    }
+
+    @Test
+    void streamedBodyFollowsDemand() throws Exception {
+        final EmbeddedChannel channel = channel();
+        final StreamingExchange exchange = new StreamingExchange(request("/"));
+        write(channel, exchange);
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n2\r\nde\r\n"));
+        final StreamingHttpResponse response = exchange.future().get();
+        assertFalse(channel.config().isAutoRead());
+
+        final List<String> received = new ArrayList<>();
+        final Subscription[] subscription = new Subscription[1];
+        final boolean[] completed = new boolean[1];
+        response.messageBody().subscribe(new Subscriber<ByteBuf>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(ByteBuf content) {
+                received.add(content.toString(StandardCharsets.US_ASCII));
+                content.release();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+        channel.runPendingTasks();
+        assertTrue(received.isEmpty());
+
+        subscription[0].request(1);
+        assertEquals(Collections.singletonList("abc"), received);
+
+        channel.writeInbound(ascii("0\r\n\r\n"));
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(1, released.size());
+        assertFalse(completed[0]);
+
+        subscription[0].request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("abc", "de"), received);
+        assertTrue(completed[0]);
+        assertFalse(channel.finish());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DownloadMode.class)
+    void downloadWritesBodyIntoFile(final DownloadMode mode, @TempDir final Path dir) throws Exception {
+        final EmbeddedChannel channel = channel();
+        final Path target = dir.resolve("body");
+        final FileExchange exchange = new FileExchange(request("/"), target, mode);
+        write(channel, exchange);
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 11\r\n\r\nhello"));
+        channel.writeInbound(ascii(" world"));
+
+        assertEquals(200, exchange.future().get().statusCode());
+        assertEquals("hello world", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,104 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Loopback HTTP/1.1 server reading request heads line by line, requests carry no body, and answering each one
+ * through a {@link Responder}.
+ */
+final class StubHttpServer implements Closeable {
+    static final String OK = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+
+    /**
+     * Answers one request, on the connection's event loop.
+     */
+    interface Responder {
+        void respond(ChannelHandlerContext ctx, String path);
+    }
+
+    private final EventLoopGroup group;
+    private final Channel channel;
+
+    /**
+     * @param responses raw response for a request's path, written right away
+     */
+    StubHttpServer(final Function<String, String> responses) throws InterruptedException {
+        this((ctx, path) -> ctx.writeAndFlush(responses.apply(path)));
+    }
+
+    StubHttpServer(final Responder responder) throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        channel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new LineBasedFrameDecoder(8192),
+                                new StringDecoder(StandardCharsets.US_ASCII),
+                                new StringEncoder(StandardCharsets.US_ASCII),
+                                new SimpleChannelInboundHandler<String>() {
+                                    private String path;
+
+                                    @Override
+                                    protected void channelRead0(final ChannelHandlerContext ctx, final String line) {
+                                        if (path == null) {
+                                            path = line.split(" ")[1];
+                                        } else if (line.isEmpty()) {
+                                            final String requested = path;
+                                            path = null;
+                                            responder.respond(ctx, requested);
+                                        }
+                                    }
+                                });
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+    }
+
+    int port() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    HttpRequest request(final String path) {
+        return request(HttpMethod.GET, path);
+    }
+
+    HttpRequest request(final HttpMethod method, final String path) {
+        return HttpRequest.builder()
+                .setHost("127.0.0.1")
+                .setPort(port())
+                .setMethod(method)
+                .setPath(path)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .build();
+    }
+
+    @Override
+    public void close() {
+        channel.close();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,251 @@
+package io.yz.yzhttp.client;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.util.ReferenceCountUtil;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TlsTest {
+    private final List<String> sessionIds = new CopyOnWriteArrayList<>();
+
+    private EventLoopGroup group;
+    private Channel server;
+    private int port;
+
+    /**
+     * TLS 1.2 server for {@code localhost} with a self-signed certificate, answering with the negotiated protocol.
+     * TLS 1.2 because its session ids show whether a session was resumed.
+     */
+    private void start(final String... protocols) throws Exception {
+        final SslContext sslContext;
+        try (InputStream cert = resource("localhost.crt"); InputStream key = resource("localhost.key")) {
+            sslContext = SslContextBuilder.forServer(cert, key)
+                    .sslProvider(SslProvider.JDK)
+                    .protocols("TLSv1.2")
+                    .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                            ApplicationProtocolConfig.Protocol.ALPN,
+                            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                            protocols))
+                    .build();
+        }
+
+        group = new NioEventLoopGroup(1);
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(sslContext.newHandler(ch.alloc()), new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                            @Override
+                            protected void configurePipeline(final ChannelHandlerContext ctx, final String protocol) {
+                                sessionIds.add(ByteBufUtil.hexDump(ctx.pipeline().get(SslHandler.class).engine().getSession().getId()));
+                                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                    ctx.pipeline().addLast(Http2FrameCodecBuilder.forServer().build(), new Http2MultiplexHandler(Http2Responder.INSTANCE));
+                                } else {
+                                    ctx.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(64 * 1024), new Http11Responder());
+                                }
+                            }
+                        });
+                    }
+                })
+                .bind(0)
+                .sync()
+                .channel();
+        port = ((InetSocketAddress) server.localAddress()).getPort();
+    }
+
+    private static InputStream resource(final String name) {
+        return TlsTest.class.getResourceAsStream("/tls/" + name);
+    }
+
+    private static TrustManagerFactory trustLocalhost() throws Exception {
+        final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        try (InputStream cert = resource("localhost.crt")) {
+            keyStore.setCertificateEntry("localhost", CertificateFactory.getInstance("X.509").generateCertificate(cert));
+        }
+        final TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore);
+        return factory;
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private HttpRequest.Builder request(final HttpVersion version) {
+        return HttpRequest.builder()
+                .setHost("localhost")
+                .setPort(port)
+                .setSecure(true)
+                .setMethod(HttpMethod.GET)
+                .setPath("/")
+                .setVersion(version);
+    }
+
+    private static String body(final HttpResponse response) {
+        return StandardCharsets.US_ASCII.decode(response.messageBody()).toString();
+    }
+
+    @Test
+    void resumesSessionOnNextConnection() throws Exception {
+        start(ApplicationProtocolNames.HTTP_1_1);
+        final YzClientConfig config = YzClientConfig.builder().setTrustManagerFactory(trustLocalhost()).build();
+
+        try (YzClient client = new YzClient(config)) {
+            for (int i = 0; i < 2; i++) {
+                final HttpResponse response = client.sendAsync(request(HttpVersion.HTTP_1_1)
+                        .addHeader("Connection", "close")
+                        .build()).get(5, TimeUnit.SECONDS);
+                assertEquals(HttpVersion.HTTP_1_1, response.httpVersion());
+                assertEquals("http/1.1", body(response));
+            }
+        }
+
+        assertEquals(2, sessionIds.size());
+        assertFalse(sessionIds.get(0).isEmpty());
+        assertEquals(sessionIds.get(0), sessionIds.get(1));
+    }
+
+    @Test
+    void negotiatesHttp2() throws Exception {
+        start(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1);
+        final YzClientConfig config = YzClientConfig.builder().setTrustManagerFactory(trustLocalhost()).build();
+
+        try (YzClient client = new YzClient(config)) {
+            final HttpResponse response = client.sendAsync(request(HttpVersion.HTTP_2_0).build()).get(5, TimeUnit.SECONDS);
+
+            assertEquals(HttpVersion.HTTP_2_0, response.httpVersion());
+            assertEquals("h2 https", body(response));
+        }
+    }
+
+    @Test
+    void fallsBackToHttp11() throws Exception {
+        start(ApplicationProtocolNames.HTTP_1_1);
+        final YzClientConfig config = YzClientConfig.builder().setTrustManagerFactory(trustLocalhost()).build();
+
+        try (YzClient client = new YzClient(config)) {
+            for (int i = 0; i < 2; i++) {
+                final HttpResponse response = client.sendAsync(request(HttpVersion.HTTP_2_0).build()).get(5, TimeUnit.SECONDS);
+
+                assertEquals(HttpVersion.HTTP_1_1, response.httpVersion());
+                assertEquals("http/1.1", body(response));
+            }
+        }
+    }
+
+    @Test
+    void rejectsUntrustedCertificate() throws Exception {
+        start(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1);
+
+        try (YzClient client = new YzClient()) {
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.sendAsync(request(HttpVersion.HTTP_2_0).build()).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SSLHandshakeException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void createsContextOnFirstSecureRequest() throws Exception {
+        start(ApplicationProtocolNames.HTTP_1_1);
+        // never initialized, so creating a context from it fails
+        final TrustManagerFactory broken = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+
+        try (YzClient client = new YzClient(YzClientConfig.builder().setTrustManagerFactory(broken).build())) {
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.sendAsync(request(HttpVersion.HTTP_1_1).build()).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    private static final class Http11Responder extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final FullHttpRequest request) {
+            final FullHttpResponse response = new DefaultFullHttpResponse(io.netty.handler.codec.http.HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK, Unpooled.copiedBuffer("http/1.1", StandardCharsets.US_ASCII));
+            HttpUtil.setContentLength(response, response.content().readableBytes());
+            if (HttpUtil.isKeepAlive(request)) {
+                ctx.writeAndFlush(response);
+            } else {
+                response.headers().set(HttpHeaderNames.CONNECTION, "close");
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+
+    @Sharable
+    private static final class Http2Responder extends ChannelInboundHandlerAdapter {
+        private static final Http2Responder INSTANCE = new Http2Responder();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream()) {
+                final ByteBuf body = Unpooled.copiedBuffer("h2 " + ((Http2HeadersFrame) msg).headers().scheme(), StandardCharsets.US_ASCII);
+                ctx.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers()
+                        .status("200")
+                        .setInt("content-length", body.readableBytes())));
+                ctx.writeAndFlush(new DefaultHttp2DataFrame(body, true));
+            }
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.yz.yzhttp.client.low;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.yz.yzhttp.client.ProtocolParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpContentDecompressorTest {
+    private static final int MAX_CHUNK = 64;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private EmbeddedChannel channel() {
+        return new EmbeddedChannel(new HttpObjectHandler(), new HttpContentDecompressor(MAX_CHUNK), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                if (evt instanceof HttpResponseEndEvent) {
+                    events.add(evt);
+                }
+            }
+        });
+    }
+
+    private static byte[] text() {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(final byte[] body) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(final byte[] body, final boolean nowrap) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+            deflate.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] response(final String coding, final byte[] body) {
+        final byte[] head = ("HTTP/1.1 200 OK\r\nContent-Encoding: " + coding + "\r\nContent-Length: " + body.length + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        final byte[] response = new byte[head.length + body.length];
+        System.arraycopy(head, 0, response, 0, head.length);
+        System.arraycopy(body, 0, response, head.length, body.length);
+        return response;
+    }
+
+    /**
+     * @return decoded body read off {@code channel}
+     */
+    private static byte[] decoded(final EmbeddedChannel channel) {
+        final HttpResponseHead head = channel.readInbound();
+        assertEquals(-1, head.contentLength());
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (ByteBuf chunk; (chunk = channel.readInbound()) != null; ) {
+            assertTrue(chunk.readableBytes() <= MAX_CHUNK);
+            final byte[] bytes = new byte[chunk.readableBytes()];
+            chunk.readBytes(bytes);
+            body.write(bytes, 0, bytes.length);
+            chunk.release();
+        }
+        return body.toByteArray();
+    }
+
+    @Test
+    void gzipWithFileNameByteByByte() throws IOException {
+        final byte[] gzip = gzip(text());
+        // FNAME "a.txt" after the fixed header
+        final byte[] named = new byte[gzip.length + 6];
+        System.arraycopy(gzip, 0, named, 0, 10);
+        named[3] |= 0x08;
+        System.arraycopy("a.txt\0".getBytes(StandardCharsets.US_ASCII), 0, named, 10, 6);
+        System.arraycopy(gzip, 10, named, 16, gzip.length - 10);
+
+        final EmbeddedChannel channel = channel();
+        for (byte b : response("gzip", named)) {
+            channel.writeInbound(Unpooled.directBuffer(1).writeByte(b));
+        }
+
+        assertArrayEquals(text(), decoded(channel));
+        assertEquals(1, events.size());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void deflateZlibAndRaw() throws IOException {
+        for (boolean nowrap : new boolean[]{false, true}) {
+            events.clear();
+            final EmbeddedChannel channel = channel();
+            channel.writeInbound(Unpooled.wrappedBuffer(response("deflate", deflate(text(), nowrap))));
+
+            assertArrayEquals(text(), decoded(channel));
+            assertEquals(HttpResponseEndEvent.KEEP_ALIVE, events.get(0));
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    void identityPassesThrough() {
+        final EmbeddedChannel channel = channel();
+        channel.writeInbound(Unpooled.copiedBuffer("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok", StandardCharsets.US_ASCII));
+
+        final HttpResponseHead head = channel.readInbound();
+        assertEquals(2, head.contentLength());
+        final ByteBuf body = channel.readInbound();
+        assertEquals("ok", body.toString(StandardCharsets.US_ASCII));
+        body.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void corruptGzipTrailer() throws IOException {
+        final byte[] gzip = gzip(text());
+        gzip[gzip.length - 5] ^= 1;
+
+        final EmbeddedChannel channel = channel();
+        assertThrows(ProtocolParseException.class, () -> channel.writeInbound(Unpooled.wrappedBuffer(response("gzip", gzip))));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void truncatedGzip() throws IOException {
+        final byte[] gzip = gzip(text());
+        final byte[] head = ("HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        final EmbeddedChannel channel = channel();
+        channel.writeInbound(Unpooled.wrappedBuffer(head), Unpooled.wrappedBuffer(gzip, 0, gzip.length / 2));
+        channel.close();
+        assertThrows(ProtocolParseException.class, channel::checkException);
+        assertEquals(0, events.size());
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,217 @@
+package io.yz.yzhttp.client.low;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.yz.yzhttp.client.ProtocolParseException;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpObjectHandlerTest {
+    private final List<Object> events = new ArrayList<>();
+    private final List<Object> allEvents = new ArrayList<>();
+
+    /**
+     * {@link #events} holds the {@link HttpResponseEndEvent}s, {@link #allEvents} every user event.
+     */
+    private EmbeddedChannel channel() {
+        return new EmbeddedChannel(new HttpObjectHandler(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                allEvents.add(evt);
+                if (evt instanceof HttpResponseEndEvent) {
+                    events.add(evt);
+                }
+            }
+        });
+    }
+
+    private static ByteBuf ascii(final String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void contentLengthBody() {
+        final EmbeddedChannel channel = channel();
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 11\r\nServer: test\r\n\r\nhello"));
+        channel.writeInbound(ascii(" world"));
+
+        final HttpResponseHead head = channel.readInbound();
+        assertEquals(HttpVersion.HTTP_1_1, head.httpVersion());
+        assertEquals(200, head.statusCode());
+        assertEquals("OK", head.reasonPhrase());
+        assertEquals(11, head.contentLength());
+        assertEquals("test", head.httpHeader().getHeader("server").orElse(null));
+
+        final ByteBuf first = channel.readInbound();
+        final ByteBuf second = channel.readInbound();
+        assertEquals("hello", first.toString(StandardCharsets.US_ASCII));
+        assertEquals(" world", second.toString(StandardCharsets.US_ASCII));
+        first.release();
+        second.release();
+
+        assertEquals(1, events.size());
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, events.get(0));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void bodySliceSharesIncomingBuffer() {
+        final EmbeddedChannel channel = channel();
+        final ByteBuf in = ascii("HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\nabc");
+
+        channel.writeInbound(in);
+
+        assertTrue(channel.readInbound() instanceof HttpResponseHead);
+        final ByteBuf body = channel.readInbound();
+        assertEquals(1, in.refCnt());
+        body.release();
+        assertEquals(0, in.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void responsesOnSameConnection() {
+        final EmbeddedChannel channel = channel();
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nabHTTP/1.1 204 No Content\r\n\r\n"
+                + "HTTP/1.1 404 Not Found\r\nConnection: close\r\nContent-Length: 1\r\n\r\nx"));
+
+        final List<Integer> statusCodes = new ArrayList<>();
+        for (Object msg; (msg = channel.readInbound()) != null; ) {
+            if (msg instanceof HttpResponseHead) {
+                statusCodes.add(((HttpResponseHead) msg).statusCode());
+            } else {
+                ((ByteBuf) msg).release();
+            }
+        }
+
+        assertEquals(3, statusCodes.size());
+        assertEquals(200, statusCodes.get(0));
+        assertEquals(204, statusCodes.get(1));
+        assertEquals(404, statusCodes.get(2));
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, events.get(0));
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, events.get(1));
+        assertEquals(HttpResponseEndEvent.CLOSE, events.get(2));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void startEventPrecedesEachResponse() {
+        final EmbeddedChannel channel = channel();
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nabHTTP/1.1 204 No Content\r\n"));
+        channel.writeInbound(ascii("\r\n"));
+        channel.writeInbound(ascii(""));
+
+        assertEquals(4, allEvents.size());
+        assertSame(HttpResponseStartEvent.INSTANCE, allEvents.get(0));
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, allEvents.get(1));
+        assertSame(HttpResponseStartEvent.INSTANCE, allEvents.get(2));
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, allEvents.get(3));
+        for (Object msg; (msg = channel.readInbound()) != null; ) {
+            ReferenceCountUtil.release(msg);
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void chunkedBodySplitAcrossReads() {
+        final EmbeddedChannel channel = channel();
+        final String response = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5;name=value\r\nhello\r\n"
+                + "6\r\n world\r\n"
+                + "0\r\n"
+                + "Expires: never\r\n"
+                + "\r\n";
+
+        for (byte b : response.getBytes(StandardCharsets.US_ASCII)) {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{b}));
+        }
+
+        final HttpResponseHead head = channel.readInbound();
+        assertEquals(-1, head.contentLength());
+
+        final StringBuilder body = new StringBuilder();
+        HttpResponseTrailer trailer = null;
+        for (Object msg; (msg = channel.readInbound()) != null; ) {
+            if (msg instanceof HttpResponseTrailer) {
+                trailer = (HttpResponseTrailer) msg;
+            } else {
+                body.append(((ByteBuf) msg).toString(StandardCharsets.US_ASCII));
+                ((ByteBuf) msg).release();
+            }
+        }
+
+        assertEquals("hello world", body.toString());
+        assertNotNull(trailer);
+        assertEquals("never", trailer.httpHeader().getHeader("Expires").orElse(null));
+        assertEquals(1, events.size());
+        assertEquals(HttpResponseEndEvent.KEEP_ALIVE, events.get(0));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void chunkedThenContentLength() {
+        final EmbeddedChannel channel = channel();
+
+        channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nTransfer-Encoding: gzip, chunked\r\n\r\n"
+                + "1A\r\nabcdefghijklmnopqrstuvwxyz\r\n0\r\n\r\n"
+                + "HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\nz"));
+
+        final List<Object> messages = new ArrayList<>();
+        for (Object msg; (msg = channel.readInbound()) != null; ) {
+            messages.add(msg);
+        }
+
+        assertEquals(4, messages.size());
+        assertEquals(26, ((ByteBuf) messages.get(1)).readableBytes());
+        assertEquals(1, ((ByteBuf) messages.get(3)).readableBytes());
+        ((ByteBuf) messages.get(1)).release();
+        ((ByteBuf) messages.get(3)).release();
+        assertEquals(2, events.size());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void invalidChunkSize() {
+        final EmbeddedChannel channel = channel();
+
+        assertThrows(ProtocolParseException.class, () ->
+                channel.writeInbound(ascii("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n")));
+    }
+
+    @Test
+    void sameHeadAtEverySplitPoint() {
+        final String response = "HTTP/1.1 200 Everything Is Fine\r\n"
+                + "Content-Type: text/plain; charset=utf-8\r\n"
+                + "X-Folded: first\r\n second\r\n"
+                + "Content-Length: 0\r\n"
+                + "\r\n";
+        final byte[] bytes = response.getBytes(StandardCharsets.US_ASCII);
+
+        for (int split = 1; split < bytes.length; split++) {
+            final EmbeddedChannel channel = channel();
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, 0, split));
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, split, bytes.length - split));
+
+            final HttpResponseHead head = channel.readInbound();
+            assertEquals(HttpVersion.HTTP_1_1, head.httpVersion(), "split at " + split);
+            assertEquals(200, head.statusCode(), "split at " + split);
+            assertEquals("Everything Is Fine", head.reasonPhrase(), "split at " + split);
+            assertEquals("text/plain; charset=utf-8", head.httpHeader().getHeader("Content-Type").orElse(null));
+            assertEquals("first second", head.httpHeader().getHeader("X-Folded").orElse(null));
+            assertFalse(channel.finish());
+        }
+    }
+}
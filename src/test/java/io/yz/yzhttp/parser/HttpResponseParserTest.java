@@ -0,0 +1,89 @@
+package io.yz.yzhttp.parser;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.yz.yzhttp.constant.HttpMethod;
+import io.yz.yzhttp.constant.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResponseParserTest {
+    private static ByteBuf ascii(final String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void interimResponseIsSkipped() {
+        final HttpResponseParser parser = new HttpResponseParser();
+        final ByteBuf buffer = ascii("HTTP/1.1 100 Continue\r\n\r\n"
+                + "HTTP/1.0 200 OK\r\nConnection: keep-alive\r\nContent-Length: 2\r\n\r\nok");
+
+        assertEquals(HttpResponseParser.Event.HEAD, parser.parse(buffer));
+        assertEquals(HttpVersion.HTTP_1_0, parser.httpVersion());
+        assertEquals(200, parser.statusCode());
+        assertEquals("OK", parser.reasonPhrase());
+        assertEquals(2, parser.contentLength());
+
+        assertEquals(HttpResponseParser.Event.CONTENT, parser.parse(buffer));
+        final ByteBuf content = parser.content();
+        assertEquals("ok", content.toString(StandardCharsets.US_ASCII));
+        content.release();
+
+        assertEquals(HttpResponseParser.Event.END, parser.parse(buffer));
+        assertTrue(parser.keepAlive());
+        assertEquals(HttpResponseParser.Event.NEED_MORE, parser.parse(buffer));
+        buffer.release();
+    }
+
+    @Test
+    void headResponseHasNoBody() {
+        final HttpResponseParser parser = new HttpResponseParser();
+        final ByteBuf buffer = ascii("HTTP/1.1 200 OK\r\nContent-Length: 1024\r\n\r\n");
+
+        parser.requestMethod(HttpMethod.HEAD);
+
+        assertEquals(HttpResponseParser.Event.HEAD, parser.parse(buffer));
+        assertEquals(0, parser.contentLength());
+        assertEquals(HttpResponseParser.Event.END, parser.parse(buffer));
+        buffer.release();
+    }
+
+    @Test
+    void untilClose() {
+        final HttpResponseParser parser = new HttpResponseParser();
+        final ByteBuf buffer = ascii("HTTP/1.1 200 OK\r\n\r\nabc");
+
+        assertEquals(HttpResponseParser.Event.HEAD, parser.parse(buffer));
+        assertEquals(HttpResponseParser.UNTIL_CLOSE, parser.contentLength());
+        assertEquals(HttpResponseParser.Event.CONTENT, parser.parse(buffer));
+        parser.content().release();
+        assertEquals(HttpResponseParser.Event.NEED_MORE, parser.parse(buffer));
+
+        assertTrue(parser.closed());
+        assertFalse(parser.keepAlive());
+        buffer.release();
+    }
+
+    @Test
+    void headTooLarge() {
+        final HttpResponseParser parser = new HttpResponseParser(32);
+        final ByteBuf buffer = ascii("HTTP/1.1 200 OK\r\nServer: a-rather-long-server-name\r\n\r\n");
+
+        assertThrows(ParseException.class, () -> parser.parse(buffer));
+        buffer.release();
+    }
+
+    @Test
+    void unsupportedVersion() {
+        for (String version : new String[]{"HTTP/1.2", "HTTP/2.0"}) {
+            final HttpResponseParser parser = new HttpResponseParser();
+            final ByteBuf buffer = ascii(version + " 200 OK\r\nContent-Length: 0\r\n\r\n");
+
+            assertThrows(ParseException.class, () -> parser.parse(buffer), version);
+            buffer.release();
+        }
+    }
+}